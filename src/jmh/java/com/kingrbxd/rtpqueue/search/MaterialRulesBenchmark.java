@@ -0,0 +1,86 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MaterialRulesBenchmark
+ *
+ * Compares the MaterialRules flag table against the Material checks the safety check used before it
+ * (TeleportManager.isUnsafeBlock): isSolid()/isAir() calls plus a case-insensitive compare against
+ * every configured unsafe block.
+ * Both sides classify the same column of blocks the way SafetyScanner.check does.
+ *
+ * Run with: mvn -P benchmark test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MaterialRulesBenchmark {
+    /** The default teleport.unsafe-blocks list. */
+    private static final List<String> UNSAFE_BLOCKS = Arrays.asList(
+            "LAVA", "WATER", "CACTUS", "CAMPFIRE", "FIRE", "MAGMA_BLOCK", "SOUL_FIRE", "SOUL_CAMPFIRE",
+            "SWEET_BERRY_BUSH", "WITHER_ROSE", "POWDER_SNOW", "END_PORTAL", "NETHER_PORTAL", "VOID_AIR", "CAVE_AIR"
+    );
+
+    /** A typical overworld column, top to bottom. */
+    private static final Material[] COLUMN = {
+            Material.AIR, Material.AIR, Material.AIR, Material.OAK_LEAVES, Material.AIR, Material.GRASS,
+            Material.GRASS_BLOCK, Material.DIRT, Material.DIRT, Material.STONE, Material.STONE, Material.COAL_ORE,
+            Material.CAVE_AIR, Material.CAVE_AIR, Material.LAVA, Material.DEEPSLATE, Material.DEEPSLATE, Material.BEDROCK
+    };
+
+    private MaterialRules rules;
+
+    @Setup
+    public void setup() {
+        rules = MaterialRules.compile(UNSAFE_BLOCKS);
+    }
+
+    @Benchmark
+    public void flagTable(Blackhole blackhole) {
+        for (Material material : COLUMN) {
+            blackhole.consume(rules.isSolid(material));
+            blackhole.consume(rules.isPassable(material));
+            blackhole.consume(rules.isUnsafe(material));
+            blackhole.consume(rules.isDangerous(material));
+        }
+    }
+
+    @Benchmark
+    public void materialChecks(Blackhole blackhole) {
+        for (Material material : COLUMN) {
+            blackhole.consume(material.isSolid());
+            blackhole.consume(material.isAir());
+            blackhole.consume(isUnsafeBlock(material));
+            blackhole.consume(material == Material.LAVA || material == Material.FIRE || material == Material.SOUL_FIRE);
+        }
+    }
+
+    /** TeleportManager.isUnsafeBlock, the unsafe-block check before MaterialRules. */
+    private static boolean isUnsafeBlock(Material material) {
+        String materialName = material.name();
+
+        for (String unsafeBlock : UNSAFE_BLOCKS) {
+            if (materialName.equalsIgnoreCase(unsafeBlock)) {
+                return true;
+            }
+        }
+
+        return material == Material.LAVA ||
+                material == Material.MAGMA_BLOCK ||
+                material == Material.FIRE ||
+                material == Material.SOUL_FIRE ||
+                material == Material.CAMPFIRE ||
+                material == Material.SOUL_CAMPFIRE ||
+                material == Material.CACTUS;
+    }
+}
@@ -4,6 +4,10 @@ import com.kingrbxd.rtpqueue.commands.RTPQueueCommand;
 import com.kingrbxd.rtpqueue.handlers.*;
 import com.kingrbxd.rtpqueue.listeners.*;
 import com.kingrbxd.rtpqueue.placeholders.PlaceholderManager;
+import com.kingrbxd.rtpqueue.search.LocationFinder;
+import com.kingrbxd.rtpqueue.search.LocationPool;
+import com.kingrbxd.rtpqueue.search.PregenManager;
+import com.kingrbxd.rtpqueue.tasks.LocationPoolTask;
 import com.kingrbxd.rtpqueue.tasks.QueueClearTask;
 import com.kingrbxd.rtpqueue.utils.ConfigManager;
 import com.kingrbxd.rtpqueue.utils.ConfigMigrator;
@@ -27,6 +31,9 @@ public class AdvancedRTPQueue extends JavaPlugin {
     private CooldownManager cooldownManager;
     private WorldManager worldManager;
     private ClaimProtectionHandler claimProtectionHandler;
+    private LocationFinder locationFinder;
+    private LocationPool locationPool;
+    private PregenManager pregenManager;
     private TeleportManager teleportManager;
 
     // Integration managers
@@ -36,6 +43,7 @@ public class AdvancedRTPQueue extends JavaPlugin {
     // Tasks
     private BukkitTask clearTask;
     private BukkitTask actionBarTask;
+    private BukkitTask locationPoolTask;
 
     @Override
     public void onEnable() {
@@ -145,8 +153,14 @@ public class AdvancedRTPQueue extends JavaPlugin {
             queueHandler = new QueueHandler(this);
             cooldownManager = new CooldownManager(this);
             claimProtectionHandler = new ClaimProtectionHandler(this);
+            locationFinder = new LocationFinder(this);
+            locationPool = new LocationPool(this);
+            pregenManager = new PregenManager(this);
             teleportManager = new TeleportManager(this);
 
+            // Resume pregeneration jobs that were running at the last shutdown
+            pregenManager.resumeJobs();
+
             getLogger().info("Core systems initialized successfully");
             return true;
         } catch (Exception e) {
@@ -183,6 +197,7 @@ public class AdvancedRTPQueue extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new PlayerMoveListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerDamageListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerChatListener(this), this);
+        getServer().getPluginManager().registerEvents(new ChunkIndexListener(this), this);
 
         if (configManager.getBoolean("plugin.debug")) {
             getLogger().info("Event listeners registered successfully");
@@ -243,6 +258,18 @@ public class AdvancedRTPQueue extends JavaPlugin {
                 getLogger().info("Action bar task started");
             }
         }
+
+        // Location pool maintenance task
+        if (configManager.getBoolean("teleport.cache-safe-locations")) {
+            int refillInterval = Math.max(1, configManager.getInt("teleport.location-pool.refill-interval", 40));
+            locationPoolTask = getServer().getScheduler().runTaskTimer(
+                    this, new LocationPoolTask(this), 20L, refillInterval
+            );
+
+            if (configManager.getBoolean("plugin.debug")) {
+                getLogger().info("Location pool task started (interval: " + refillInterval + " ticks)");
+            }
+        }
     }
 
     /**
@@ -267,6 +294,11 @@ public class AdvancedRTPQueue extends JavaPlugin {
             actionBarTask.cancel();
             actionBarTask = null;
         }
+
+        if (locationPoolTask != null) {
+            locationPoolTask.cancel();
+            locationPoolTask = null;
+        }
     }
 
     /**
@@ -277,6 +309,18 @@ public class AdvancedRTPQueue extends JavaPlugin {
             teleportManager.shutdown();
         }
 
+        if (pregenManager != null) {
+            pregenManager.shutdown();
+        }
+
+        if (locationPool != null) {
+            locationPool.shutdown();
+        }
+
+        if (locationFinder != null) {
+            locationFinder.shutdown();
+        }
+
         if (queueHandler != null) {
             queueHandler.clearAllQueues();
         }
@@ -315,6 +359,11 @@ public class AdvancedRTPQueue extends JavaPlugin {
                 worldManager.loadWorldSettings();
             }
 
+            // Recompile search material rules
+            if (locationFinder != null) {
+                locationFinder.reload();
+            }
+
             // Restart tasks
             cancelTasks();
             startTasks();
@@ -360,6 +409,18 @@ public class AdvancedRTPQueue extends JavaPlugin {
         return claimProtectionHandler;
     }
 
+    public LocationFinder getLocationFinder() {
+        return locationFinder;
+    }
+
+    public LocationPool getLocationPool() {
+        return locationPool;
+    }
+
+    public PregenManager getPregenManager() {
+        return pregenManager;
+    }
+
     public TeleportManager getTeleportManager() {
         return teleportManager;
     }
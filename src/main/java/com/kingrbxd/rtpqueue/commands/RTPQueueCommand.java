@@ -2,6 +2,11 @@ package com.kingrbxd.rtpqueue.commands;
 
 import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
 import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import com.kingrbxd.rtpqueue.search.LatencyHistogram;
+import com.kingrbxd.rtpqueue.search.PregenJob;
+import com.kingrbxd.rtpqueue.search.PregenManager;
+import com.kingrbxd.rtpqueue.search.RejectReason;
+import com.kingrbxd.rtpqueue.search.SearchStats;
 import com.kingrbxd.rtpqueue.utils.MessageUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
@@ -20,6 +25,8 @@ import java.util.stream.Collectors;
  *  - blocks joining while player has an active teleport session
  *  - supports joining default world, named worlds (display-name resolution)
  *  - supports admin force: /rtpqueue force <player> [world]
+ *  - supports admin pregeneration: /rtpqueue pregen [world] [stop]
+ *  - supports admin search telemetry: /rtpqueue stats [world] [reset]
  */
 public class RTPQueueCommand implements CommandExecutor, TabCompleter {
     private final AdvancedRTPQueue plugin;
@@ -122,11 +129,27 @@ public class RTPQueueCommand implements CommandExecutor, TabCompleter {
                 String worldInput = args.length >= 3 ? args[2] : null;
                 return handleForce(sender, targetName, worldInput);
 
+            case "pregen":
+                if (!sender.hasPermission("rtpqueue.admin")) {
+                    if (isPlayerSender) MessageUtil.sendMessage(playerSender, "no-permission");
+                    else sender.sendMessage("You don't have permission to run that command.");
+                    return true;
+                }
+                return handlePregen(sender, args);
+
+            case "stats":
+                if (!sender.hasPermission("rtpqueue.admin")) {
+                    if (isPlayerSender) MessageUtil.sendMessage(playerSender, "no-permission");
+                    else sender.sendMessage("You don't have permission to run that command.");
+                    return true;
+                }
+                return handleStats(sender, args);
+
             default:
                 if (isPlayerSender) {
                     MessageUtil.sendMessage(playerSender, "invalid-command");
                 } else {
-                    sender.sendMessage("Invalid command. Usage: /rtpqueue [world <name>|leave|reload|clear|force <player> [world]]");
+                    sender.sendMessage("Invalid command. Usage: /rtpqueue [world <name>|leave|reload|clear|force <player> [world]|pregen [world] [stop]|stats [world] [reset]]");
                 }
                 return true;
         }
@@ -345,6 +368,112 @@ public class RTPQueueCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    /**
+     * Pregeneration: no world lists running jobs, a world starts or resumes its job, "stop" stops it.
+     * Replies are plain text for players and console alike.
+     */
+    private boolean handlePregen(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            if (plugin.getPregenManager().getJobs().isEmpty()) {
+                sender.sendMessage("No pregeneration jobs running. Usage: /rtpqueue pregen <world> [stop]");
+                return true;
+            }
+            for (PregenJob job : plugin.getPregenManager().getJobs()) {
+                sender.sendMessage(formatPregenStatus(job));
+            }
+            return true;
+        }
+
+        String resolved = plugin.getWorldManager().resolveKeyByDisplayName(args[1]);
+        String worldKey = resolved != null ? resolved : args[1];
+        WorldManager wm = plugin.getWorldManager();
+        if (!wm.isValidWorld(worldKey)) {
+            sender.sendMessage("Invalid world: " + args[1]);
+            return true;
+        }
+
+        if (args.length >= 3 && args[2].equalsIgnoreCase("stop")) {
+            if (plugin.getPregenManager().stop(worldKey)) {
+                sender.sendMessage("Pregeneration of " + worldKey + " stopped; run /rtpqueue pregen " + worldKey + " to resume.");
+            } else {
+                sender.sendMessage("Pregeneration of " + worldKey + " is not running.");
+            }
+            return true;
+        }
+
+        PregenJob running = plugin.getPregenManager().getJob(worldKey);
+        if (running != null) {
+            sender.sendMessage(formatPregenStatus(running));
+            return true;
+        }
+
+        plugin.getPregenManager().start(wm.getWorldSettings(worldKey));
+        sender.sendMessage("Pregeneration of " + worldKey + " started at "
+                + PregenManager.formatPercent(plugin.getPregenManager().getJob(worldKey).getProgress())
+                + ". Use /rtpqueue pregen " + worldKey + " stop to pause it.");
+        return true;
+    }
+
+    private String formatPregenStatus(PregenJob job) {
+        return "Pregeneration of " + job.getWorldSettings().getWorldKey() + ": " + PregenManager.formatPercent(job.getProgress())
+                + " (" + job.getChunks() + " chunks, " + job.getFound() + " locations pooled this run)";
+    }
+
+    /**
+     * Search telemetry: no world shows every world with data, a world shows only that one,
+     * "reset" after the world clears its counters. Plain text for players and console alike.
+     */
+    private boolean handleStats(CommandSender sender, String[] args) {
+        SearchStats stats = plugin.getLocationFinder().getStats();
+        List<String> worlds;
+        if (args.length >= 2) {
+            String resolved = plugin.getWorldManager().resolveKeyByDisplayName(args[1]);
+            WorldManager.WorldSettings settings = plugin.getWorldManager().getWorldSettings(resolved != null ? resolved : args[1]);
+            if (settings == null) {
+                sender.sendMessage("Invalid world: " + args[1]);
+                return true;
+            }
+            if (args.length >= 3 && args[2].equalsIgnoreCase("reset")) {
+                stats.reset(settings.getBukkitWorldName());
+                sender.sendMessage("Search statistics for " + settings.getWorldKey() + " reset.");
+                return true;
+            }
+            worlds = Collections.singletonList(settings.getBukkitWorldName());
+        } else {
+            worlds = stats.getWorldNames();
+            Collections.sort(worlds);
+        }
+
+        if (worlds.isEmpty()) {
+            sender.sendMessage("No location searches recorded yet.");
+            return true;
+        }
+
+        for (String world : worlds) {
+            long candidates = stats.getCandidates(world);
+            sender.sendMessage("Search stats for " + world + ": " + candidates + " candidates, "
+                    + stats.getSuccesses(world) + " found, " + stats.getTimeouts(world) + " timed out, "
+                    + stats.getFailures(world) + " given up");
+
+            for (RejectReason reason : RejectReason.values()) {
+                long count = stats.getRejections(world, reason);
+                if (count == 0) continue;
+                sender.sendMessage(String.format("  %s: %d (%.1f%%)", reason.getDescription(), count,
+                        stats.getRejectionRate(world, reason) * 100.0));
+            }
+
+            for (SearchStats.Stage stage : SearchStats.Stage.values()) {
+                LatencyHistogram histogram = stats.getLatency(world, stage);
+                if (histogram == null || histogram.getCount() == 0) continue;
+                sender.sendMessage(String.format("  %s: n=%d mean=%.2fms p50<%.2fms p90<%.2fms p99<%.2fms",
+                        stage.getDescription(), histogram.getCount(), histogram.getMeanMillis(),
+                        histogram.getPercentileMillis(0.5), histogram.getPercentileMillis(0.9),
+                        histogram.getPercentileMillis(0.99)));
+            }
+        }
+        return true;
+    }
+
     private boolean hasWorldPermission(Player player, String worldKey) {
         if (player == null) return false;
         if (player.hasPermission("rtpqueue.world.*")) return true;
@@ -374,6 +503,8 @@ public class RTPQueueCommand implements CommandExecutor, TabCompleter {
             if (sender.hasPermission("rtpqueue.admin")) {
                 completions.add("reload");
                 completions.add("clear");
+                completions.add("pregen");
+                completions.add("stats");
             }
             if (sender.hasPermission("rtpqueue.force")) {
                 completions.add("force");
@@ -387,7 +518,9 @@ public class RTPQueueCommand implements CommandExecutor, TabCompleter {
         }
 
         if (args.length == 2) {
-            if (args[0].equalsIgnoreCase("world")) {
+            boolean adminWorldArg = (args[0].equalsIgnoreCase("pregen") || args[0].equalsIgnoreCase("stats"))
+                    && sender.hasPermission("rtpqueue.admin");
+            if (args[0].equalsIgnoreCase("world") || adminWorldArg) {
                 final String partial = args[1].toLowerCase(Locale.ROOT);
                 Set<String> keys = plugin.getWorldManager().getValidWorldNames();
                 return keys.stream()
@@ -406,6 +539,14 @@ public class RTPQueueCommand implements CommandExecutor, TabCompleter {
             }
         }
 
+        if (args.length == 3 && sender.hasPermission("rtpqueue.admin")
+                && (args[0].equalsIgnoreCase("pregen") || args[0].equalsIgnoreCase("stats"))) {
+            String option = args[0].equalsIgnoreCase("pregen") ? "stop" : "reset";
+            return option.startsWith(args[2].toLowerCase(Locale.ROOT))
+                    ? Collections.singletonList(option)
+                    : Collections.emptyList();
+        }
+
         if (args.length == 3 && args[0].equalsIgnoreCase("force")) {
             final String partial = args[2].toLowerCase(Locale.ROOT);
             Set<String> keys = plugin.getWorldManager().getValidWorldNames();
@@ -3,17 +3,37 @@ package com.kingrbxd.rtpqueue.handlers;
 import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
 import com.kingrbxd.rtpqueue.protection.*;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Complete claim protection handler
+ *
+ * Chunk verdicts (claimed, unclaimed or partial) are cached per world in a ClaimVerdictCache, so a
+ * location in a chunk that is known to be fully claimed or free never reaches the claim plugins.
+ * Each integration's listener drops the verdicts of chunks touched by a claim change.
+ *
+ * With claim-protection.spatial-index enabled, every claim's bounding box is also kept in a
+ * ClaimIndex, which answers all checks without calling the claim plugins and can be queried from the
+ * search workers. It is built from every integration's claims on setup and reload; after that each
+ * listener adds or removes the box of the claim its event names, so claims are never re-collected.
  */
 public class ClaimProtectionHandler {
     private final AdvancedRTPQueue plugin;
     private final List<ClaimChecker> claimCheckers = new ArrayList<>();
+    private final List<Listener> claimListeners = new ArrayList<>();
+    private ClaimVerdictCache verdictCache; // built from claim-protection.chunk-cache in setupProtection
+    private final ClaimIndex claimIndex = new ClaimIndex();
     private boolean enabled;
+    private boolean cacheEnabled;
+    private boolean indexReady;
 
     public ClaimProtectionHandler(AdvancedRTPQueue plugin) {
         this.plugin = plugin;
@@ -25,6 +45,14 @@ public class ClaimProtectionHandler {
      */
     public void setupProtection() {
         claimCheckers.clear();
+        claimListeners.forEach(HandlerList::unregisterAll);
+        claimListeners.clear();
+        indexReady = false;
+        claimIndex.clear();
+
+        cacheEnabled = plugin.getConfigManager().getBoolean("claim-protection.chunk-cache.enabled", true);
+        verdictCache = new ClaimVerdictCache(plugin.getConfigManager().getInt("claim-protection.chunk-cache.expiry", 300) * 1000L,
+                plugin.getConfigManager().getInt("claim-protection.chunk-cache.max-chunks", 65536));
 
         if (!enabled) {
             plugin.getLogger().info("Claim protection is disabled");
@@ -36,6 +64,7 @@ public class ClaimProtectionHandler {
             if (plugin.getServer().getPluginManager().getPlugin("GriefPrevention") != null) {
                 try {
                     claimCheckers.add(new GriefPreventionClaimChecker());
+                    registerClaimListener(new GriefPreventionClaimListener(this));
                     plugin.getLogger().info("Hooked into GriefPrevention for claim protection");
                 } catch (Exception e) {
                     plugin.getLogger().warning("Failed to hook into GriefPrevention: " + e.getMessage());
@@ -48,6 +77,7 @@ public class ClaimProtectionHandler {
             if (plugin.getServer().getPluginManager().getPlugin("Factions") != null) {
                 try {
                     claimCheckers.add(new FactionsClaimChecker());
+                    registerClaimListener(new FactionsClaimListener(this));
                     plugin.getLogger().info("Hooked into Factions for claim protection");
                 } catch (Exception e) {
                     plugin.getLogger().warning("Failed to hook into Factions: " + e.getMessage());
@@ -60,6 +90,7 @@ public class ClaimProtectionHandler {
             if (plugin.getServer().getPluginManager().getPlugin("Towny") != null) {
                 try {
                     claimCheckers.add(new TownyClaimChecker());
+                    registerClaimListener(new TownyClaimListener(this));
                     plugin.getLogger().info("Hooked into Towny for claim protection");
                 } catch (Exception e) {
                     plugin.getLogger().warning("Failed to hook into Towny: " + e.getMessage());
@@ -72,6 +103,10 @@ public class ClaimProtectionHandler {
         } else {
             plugin.getLogger().info("Loaded " + claimCheckers.size() + " claim protection integrations");
         }
+
+        if (!claimCheckers.isEmpty() && plugin.getConfigManager().getBoolean("claim-protection.spatial-index.enabled", false)) {
+            buildClaimIndex();
+        }
     }
 
     /**
@@ -82,6 +117,17 @@ public class ClaimProtectionHandler {
             return false;
         }
 
+        if (indexReady && location.getWorld() != null) {
+            return claimIndex.isClaimed(location.getWorld().getName(), location.getBlockX(), location.getBlockZ());
+        }
+
+        if (cacheEnabled && location.getWorld() != null) {
+            ClaimVerdict verdict = getChunkVerdict(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+            if (verdict != ClaimVerdict.PARTIAL) {
+                return verdict == ClaimVerdict.CLAIMED;
+            }
+        }
+
         for (ClaimChecker checker : claimCheckers) {
             try {
                 if (checker.isLocationClaimed(location)) {
@@ -97,6 +143,261 @@ public class ClaimProtectionHandler {
         return false;
     }
 
+    /**
+     * The verdict for a whole chunk: CLAIMED if any integration claims all of it, UNCLAIMED if every
+     * integration knows it is free, PARTIAL otherwise. Answered from the cache where possible.
+     */
+    public ClaimVerdict getChunkVerdict(World world, int chunkX, int chunkZ) {
+        if (!enabled || world == null || claimCheckers.isEmpty()) {
+            return ClaimVerdict.UNCLAIMED;
+        }
+
+        if (indexReady) {
+            int minX = chunkX << 4;
+            int minZ = chunkZ << 4;
+            if (!claimIndex.intersects(world.getName(), minX, minZ, minX + 15, minZ + 15)) return ClaimVerdict.UNCLAIMED;
+            return claimIndex.covers(world.getName(), minX, minZ, minX + 15, minZ + 15) ? ClaimVerdict.CLAIMED : ClaimVerdict.PARTIAL;
+        }
+
+        if (cacheEnabled) {
+            ClaimVerdict cached = verdictCache.get(world.getName(), chunkX, chunkZ);
+            if (cached != null) return cached;
+        }
+
+        ClaimVerdict verdict = ClaimVerdict.UNCLAIMED;
+        for (ClaimChecker checker : claimCheckers) {
+            ClaimVerdict result;
+            try {
+                result = checker.getChunkVerdict(world, chunkX, chunkZ);
+            } catch (Exception e) {
+                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                    plugin.getLogger().warning("Error checking chunk claims with " + checker.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+                result = ClaimVerdict.PARTIAL;
+            }
+
+            if (result == ClaimVerdict.CLAIMED) {
+                verdict = ClaimVerdict.CLAIMED;
+                break;
+            }
+            if (result != ClaimVerdict.UNCLAIMED) {
+                verdict = ClaimVerdict.PARTIAL;
+            }
+        }
+
+        if (cacheEnabled) {
+            verdictCache.put(world.getName(), chunkX, chunkZ, verdict);
+        }
+        return verdict;
+    }
+
+    /**
+     * The verdict for a block rectangle, combined over all integrations like getChunkVerdict.
+     * Not cached; lets callers discard a whole claimed region in one call.
+     */
+    public ClaimVerdict getRegionVerdict(World world, int minX, int minZ, int maxX, int maxZ) {
+        if (!enabled || world == null || claimCheckers.isEmpty()) {
+            return ClaimVerdict.UNCLAIMED;
+        }
+
+        if (indexReady) {
+            if (!claimIndex.intersects(world.getName(), minX, minZ, maxX, maxZ)) return ClaimVerdict.UNCLAIMED;
+            return claimIndex.covers(world.getName(), minX, minZ, maxX, maxZ) ? ClaimVerdict.CLAIMED : ClaimVerdict.PARTIAL;
+        }
+
+        ClaimVerdict verdict = ClaimVerdict.UNCLAIMED;
+        for (ClaimChecker checker : claimCheckers) {
+            ClaimVerdict result;
+            try {
+                result = checker.getRegionVerdict(world, minX, minZ, maxX, maxZ);
+            } catch (Exception e) {
+                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                    plugin.getLogger().warning("Error checking region claims with " + checker.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+                result = ClaimVerdict.PARTIAL;
+            }
+
+            if (result == ClaimVerdict.CLAIMED) return ClaimVerdict.CLAIMED;
+            if (result != ClaimVerdict.UNCLAIMED) {
+                verdict = ClaimVerdict.PARTIAL;
+            }
+        }
+        return verdict;
+    }
+
+    /**
+     * Check a batch of columns (x, z pairs). Columns in chunks with a known verdict are answered from
+     * it; the rest go to each integration's batch check in one call, and count as claimed if it fails.
+     */
+    public boolean[] areColumnsClaimed(World world, int[] columns) {
+        boolean[] claimed = new boolean[columns.length / 2];
+        if (!enabled || world == null || claimCheckers.isEmpty() || claimed.length == 0) {
+            return claimed;
+        }
+
+        if (indexReady) {
+            for (int i = 0; i < claimed.length; i++) {
+                claimed[i] = claimIndex.isClaimed(world.getName(), columns[i * 2], columns[i * 2 + 1]);
+            }
+            return claimed;
+        }
+
+        int[] partial = new int[columns.length];
+        int[] partialSlots = new int[claimed.length];
+        int partialCount = 0;
+        long lastChunk = Long.MIN_VALUE;
+        ClaimVerdict chunkVerdict = ClaimVerdict.PARTIAL;
+        for (int i = 0; i < claimed.length; i++) {
+            int chunkX = columns[i * 2] >> 4;
+            int chunkZ = columns[i * 2 + 1] >> 4;
+            long chunk = (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+            if (chunk != lastChunk) {
+                lastChunk = chunk;
+                chunkVerdict = cacheEnabled ? getChunkVerdict(world, chunkX, chunkZ) : ClaimVerdict.PARTIAL;
+            }
+
+            if (chunkVerdict == ClaimVerdict.PARTIAL) {
+                partial[partialCount * 2] = columns[i * 2];
+                partial[partialCount * 2 + 1] = columns[i * 2 + 1];
+                partialSlots[partialCount++] = i;
+            } else {
+                claimed[i] = chunkVerdict == ClaimVerdict.CLAIMED;
+            }
+        }
+        if (partialCount == 0) return claimed;
+
+        int[] batch = Arrays.copyOf(partial, partialCount * 2);
+        for (ClaimChecker checker : claimCheckers) {
+            try {
+                boolean[] result = checker.areClaimed(world, batch);
+                for (int i = 0; i < partialCount; i++) {
+                    if (result[i]) claimed[partialSlots[i]] = true;
+                }
+            } catch (Exception e) {
+                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                    plugin.getLogger().warning("Error checking claims with " + checker.getClass().getSimpleName() + ": " + e.getMessage());
+                }
+                // an unanswered batch must not hand out claimed land
+                for (int i = 0; i < partialCount; i++) {
+                    claimed[partialSlots[i]] = true;
+                }
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * getChunkVerdict from any thread: answered right away from the claim index or on the main thread,
+     * otherwise combined from each integration's async check (not cached)
+     */
+    public CompletableFuture<ClaimVerdict> getChunkVerdictAsync(World world, int chunkX, int chunkZ) {
+        if (!enabled || world == null || claimCheckers.isEmpty() || indexReady || plugin.getServer().isPrimaryThread()) {
+            return CompletableFuture.completedFuture(getChunkVerdict(world, chunkX, chunkZ));
+        }
+
+        List<CompletableFuture<ClaimVerdict>> results = new ArrayList<>();
+        for (ClaimChecker checker : claimCheckers) {
+            results.add(checker.getChunkVerdictAsync(plugin, world, chunkX, chunkZ)
+                    .exceptionally(e -> ClaimVerdict.PARTIAL));
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            ClaimVerdict verdict = ClaimVerdict.UNCLAIMED;
+            for (CompletableFuture<ClaimVerdict> result : results) {
+                ClaimVerdict value = result.join();
+                if (value == ClaimVerdict.CLAIMED) return ClaimVerdict.CLAIMED;
+                if (value != ClaimVerdict.UNCLAIMED) verdict = ClaimVerdict.PARTIAL;
+            }
+            return verdict;
+        });
+    }
+
+    /**
+     * The spatial claim index, or null unless it is enabled and holds every integration's claims.
+     * Safe to query from any thread.
+     */
+    public ClaimIndex getClaimIndex() {
+        return enabled && indexReady ? claimIndex : null;
+    }
+
+    /**
+     * A claim covering the block rectangle was created: forget the cached verdicts of its chunks and
+     * add its box to the claim index
+     */
+    public void claimCreated(String worldName, int minX, int minZ, int maxX, int maxZ) {
+        invalidateClaims(worldName, minX, minZ, maxX, maxZ);
+        if (indexReady && worldName != null) {
+            claimIndex.add(worldName, minX, minZ, maxX, maxZ);
+        }
+    }
+
+    /**
+     * A claim covering the block rectangle was deleted: forget the cached verdicts of its chunks and
+     * drop its box from the claim index
+     */
+    public void claimDeleted(String worldName, int minX, int minZ, int maxX, int maxZ) {
+        invalidateClaims(worldName, minX, minZ, maxX, maxZ);
+        if (indexReady && worldName != null) {
+            claimIndex.remove(worldName, minX, minZ, maxX, maxZ);
+        }
+    }
+
+    /**
+     * Forget the cached verdicts of every chunk touching a changed claim's block rectangle
+     */
+    public void invalidateClaims(String worldName, int minX, int minZ, int maxX, int maxZ) {
+        if (verdictCache == null) return;
+
+        if (worldName == null) {
+            verdictCache.clear();
+        } else {
+            verdictCache.invalidate(worldName, minX, minZ, maxX, maxZ);
+        }
+    }
+
+    /**
+     * Forget the cached verdicts of a world, or of all worlds if worldName is null. Used for bulk
+     * releases whose claims are not known one by one (town deletion); the claim index keeps their
+     * boxes until the next reload, which only errs towards claimed.
+     */
+    public void invalidateClaims(String worldName) {
+        if (verdictCache == null) return;
+
+        verdictCache.invalidateWorld(worldName);
+    }
+
+    /**
+     * Collect every integration's claims and publish the index. The index is only used if all of
+     * them can list their claims. Runs on setup and reload only; claim events keep it current after that.
+     */
+    private void buildClaimIndex() {
+        ClaimIndex.Collector collector = new ClaimIndex.Collector();
+        for (ClaimChecker checker : claimCheckers) {
+            boolean listed;
+            try {
+                listed = checker.collectClaims(collector);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to list claims of " + checker.getClass().getSimpleName() + ": " + e.getMessage());
+                listed = false;
+            }
+            if (!listed) {
+                plugin.getLogger().warning(checker.getClass().getSimpleName() + " cannot list its claims, spatial claim index disabled");
+                return;
+            }
+        }
+
+        Map<String, int[]> boxes = collector.getBoxes();
+        boxes.forEach(claimIndex::publish);
+        indexReady = true;
+
+        int total = boxes.values().stream().mapToInt(worldBoxes -> worldBoxes.length / 4).sum();
+        plugin.getLogger().info("Spatial claim index built: " + total + " claims in " + boxes.size() + " worlds");
+    }
+
+    private void registerClaimListener(Listener listener) {
+        plugin.getServer().getPluginManager().registerEvents(listener, plugin);
+        claimListeners.add(listener);
+    }
+
     /**
      * Check if protection is enabled
      */
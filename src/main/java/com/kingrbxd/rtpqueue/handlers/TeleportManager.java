@@ -1,41 +1,40 @@
 package com.kingrbxd.rtpqueue.handlers;
 
 import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import com.kingrbxd.rtpqueue.search.DestinationSpacing;
 import com.kingrbxd.rtpqueue.utils.MessageUtil;
 import com.kingrbxd.rtpqueue.utils.ParticleUtil;
 import com.kingrbxd.rtpqueue.utils.TeleportEffects;
 import io.papermc.lib.PaperLib;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
 
 /**
  * TeleportManager
  *
  * - Uses Bukkit world names consistently for caching/teleportation
  * - Keeps players marked in activeSessions until teleport fully completes
- * - Safer async location search with timeout and sensible fallbacks
+ * - Safer async location search with timeout and sensible fallbacks (see LocationFinder)
  * - Additional debug/logging to help diagnose "no safe teleport location" situations
  */
 public class TeleportManager {
+    private static final long HARVEST_DELAY_TICKS = 40L; // let the chunks around the destination load first
+
     private final AdvancedRTPQueue plugin;
-    private final Map<String, Queue<Location>> locationCache = new ConcurrentHashMap<>(); // key: bukkit world name
     private final Map<UUID, TeleportSession> activeSessions = new ConcurrentHashMap<>();   // playerUuid -> session
-    private final Set<String> activeSearches = Collections.synchronizedSet(new HashSet<>()); // bukkit world names
-    private final Random random = ThreadLocalRandom.current();
 
     public TeleportManager(AdvancedRTPQueue plugin) {
         this.plugin = plugin;
-        preloadLocations();
     }
 
     /**
@@ -149,7 +148,8 @@ public class TeleportManager {
     }
 
     /**
-     * Improved async location finding
+     * Improved async location finding (candidate chunks are loaded asynchronously by LocationFinder).
+     * Sessions for the same world share one search; each gets its own location from it.
      */
     private void findLocationAsync(TeleportSession session, WorldManager.WorldSettings worldSettings) {
         if (worldSettings == null) {
@@ -157,321 +157,27 @@ public class TeleportManager {
             return;
         }
 
-        String bukkitWorldName = worldSettings.getBukkitWorldName();
-
-        if (activeSearches.contains(bukkitWorldName)) {
-            // Wait for existing search to complete and use cached result if available
-            waitForLocationSearch(session, worldSettings);
-            return;
-        }
-
-        activeSearches.add(bukkitWorldName);
-
-        new BukkitRunnable() {
-            private int attempts = 0;
-            private final int maxAttempts = Math.max(1, worldSettings.getMaxTeleportAttempts());
-            private final long startTime = System.currentTimeMillis();
-            private final long timeout = plugin.getConfigManager().getInt("teleport.search-timeout", 30) * 1000L;
-
-            @Override
-            public void run() {
-                try {
-                    if (!isSessionValid(session)) {
-                        cleanup();
-                        return;
-                    }
-
-                    // check timeout
-                    if (System.currentTimeMillis() - startTime > timeout) {
-                        handleSearchTimeout(session, worldSettings);
-                        cleanup();
-                        return;
-                    }
-
-                    // check attempts
-                    if (attempts >= maxAttempts) {
-                        handleSearchFailed(session, worldSettings);
-                        cleanup();
-                        return;
-                    }
-
-                    // try multiple locations per tick for better chance
-                    for (int i = 0; i < 5 && attempts < maxAttempts; i++) {
-                        Location location = generateSafeLocationSync(worldSettings);
-                        attempts++;
-                        if (location != null) {
-                            // Found safe location, teleport on main thread
-                            new BukkitRunnable() {
-                                @Override
-                                public void run() {
-                                    teleportPlayersAsync(session, location);
-                                }
-                            }.runTask(plugin);
-                            cleanup();
-                            return;
-                        }
-                    }
-                } catch (Exception e) {
-                    if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                        plugin.getLogger().warning("Error in location search: " + e.getMessage());
-                    }
-                    cleanup();
-                }
-            }
-
-            private void cleanup() {
-                activeSearches.remove(bukkitWorldName);
-                this.cancel();
-            }
-        }.runTaskTimerAsynchronously(plugin, 0L, 1L);
-    }
-
-    /**
-     * Generate a candidate safe location synchronously (called from async search thread but accesses world sync APIs carefully).
-     */
-    private Location generateSafeLocationSync(WorldManager.WorldSettings worldSettings) {
-        World world = worldSettings.getBukkitWorld();
-        if (world == null) return null;
-
-        int minX = Math.min(worldSettings.getMinX(), worldSettings.getMaxX());
-        int maxX = Math.max(worldSettings.getMinX(), worldSettings.getMaxX());
-        int minZ = Math.min(worldSettings.getMinZ(), worldSettings.getMaxZ());
-        int maxZ = Math.max(worldSettings.getMinZ(), worldSettings.getMaxZ());
-
-        if (maxX - minX < 0 || maxZ - minZ < 0) return null;
-
-        int x = random.nextInt(maxX - minX + 1) + minX;
-        int z = random.nextInt(maxZ - minZ + 1) + minZ;
-
-        // If safe-teleport is OFF, don't require loaded chunks or ground.
-        if (!plugin.getConfigManager().getBoolean("teleport.safe-teleport", true)) {
-            int minY = plugin.getConfigManager().getInt("teleport.min-y", 60);
-            int maxY = plugin.getConfigManager().getInt("teleport.max-y", 250);
-
-            // Try to pick a sensible Y: use spawn Y if present, otherwise minY.
-            int spawnY = world.getSpawnLocation() != null ? world.getSpawnLocation().getBlockY() : minY;
-            int y = Math.min(maxY, Math.max(minY, spawnY));
-
-            if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                plugin.getLogger().info("Unsafe mode: using raw location " + x + "," + y + "," + z + " in " + world.getName());
-            }
-            return new Location(world, x + 0.5, y, z + 0.5);
-        }
-
-        // ---- original safe path (requires chunk + ground) ----
-        if (!world.isChunkLoaded(x >> 4, z >> 4)) {
-            return null;
-        }
-
-        int y = findSafeY(world, x, z, worldSettings);
-        if (y == -1) return null;
-
-        Location location = new Location(world, x + 0.5, y + 1, z + 0.5);
-
-        if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-            plugin.getLogger().info("Testing location: " + x + "," + y + "," + z + " in " + world.getName());
-        }
-
-        return isSafeLocationDetailed(location) ? location : null;
-    }
-
-
-    /**
-     * Find safe Y coordinate using surface detection
-     */
-    private int findSafeY(World world, int x, int z, WorldManager.WorldSettings worldSettings) {
-        int minY = plugin.getConfigManager().getInt("teleport.min-y", 60);
-        int maxY = plugin.getConfigManager().getInt("teleport.max-y", 250);
-
-        try {
-            int highestY = world.getHighestBlockYAt(x, z);
-            int startY = Math.min(maxY, highestY);
-
-            // search downward from surface
-            for (int y = startY; y >= minY; y--) {
-                Block ground = world.getBlockAt(x, y, z);
-                Block feet = world.getBlockAt(x, y + 1, z);
-                Block head = world.getBlockAt(x, y + 2, z);
-
-                if (ground.getType().isSolid() &&
-                        feet.getType().isAir() &&
-                        head.getType().isAir() &&
-                        !isUnsafeBlock(ground.getType())) {
-                    return y;
-                }
-            }
-
-            // fallback: search upward from minY
-            for (int y = minY; y <= startY; y++) {
-                Block ground = world.getBlockAt(x, y - 1, z);
-                Block feet = world.getBlockAt(x, y, z);
-                Block head = world.getBlockAt(x, y + 1, z);
-
-                if (ground.getType().isSolid() &&
-                        feet.getType().isAir() &&
-                        head.getType().isAir() &&
-                        !isUnsafeBlock(ground.getType())) {
-                    return y - 1;
-                }
-            }
-        } catch (Exception e) {
-            if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                plugin.getLogger().warning("Error finding Y at " + x + "," + z + ": " + e.getMessage());
-            }
-        }
-
-        return -1;
-    }
-
-    /**
-     * Detailed safety checks
-     */
-    private boolean isSafeLocationDetailed(Location location) {
-        if (!plugin.getConfigManager().getBoolean("teleport.safe-teleport", true)) {
-            return true;
-        }
-        if (location == null || location.getWorld() == null) {
-            if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                plugin.getLogger().info("Location check failed: null location or world");
-            }
-            return false;
-        }
-
-        World world = location.getWorld();
-        int x = location.getBlockX();
-        int y = location.getBlockY();
-        int z = location.getBlockZ();
-
-        try {
-            Block ground = world.getBlockAt(x, y - 1, z);
-            Block feet = world.getBlockAt(x, y, z);
-            Block head = world.getBlockAt(x, y + 1, z);
-
-            if (!ground.getType().isSolid()) {
-                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                    plugin.getLogger().info("Location unsafe: no solid ground (" + ground.getType() + ")");
-                }
-                return false;
-            }
-
-            if (!feet.getType().isAir()) {
-                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                    plugin.getLogger().info("Location unsafe: feet not air (" + feet.getType() + ")");
-                }
-                return false;
-            }
-
-            if (!head.getType().isAir()) {
-                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                    plugin.getLogger().info("Location unsafe: head not air (" + head.getType() + ")");
-                }
-                return false;
-            }
-
-            if (isUnsafeBlock(ground.getType())) {
-                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                    plugin.getLogger().info("Location unsafe: unsafe ground block (" + ground.getType() + ")");
-                }
-                return false;
-            }
+        CompletableFuture<Location> search = plugin.getLocationFinder().requestLocation(worldSettings);
+        session.setLocationSearch(search);
 
-            if (hasUnsafeSurroundings(world, x, y, z)) {
-                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                    plugin.getLogger().info("Location unsafe: dangerous surroundings");
-                }
-                return false;
+        search.whenComplete((location, error) -> {
+            if (error instanceof CancellationException || !isSessionValid(session)) {
+                return;
             }
 
-            if (plugin.getConfigManager().getBoolean("claim-protection.enabled") &&
-                    plugin.getClaimProtectionHandler() != null &&
-                    plugin.getClaimProtectionHandler().isLocationClaimed(location)) {
+            if (error instanceof TimeoutException) {
+                handleSearchTimeout(session, worldSettings);
+            } else if (error != null) {
                 if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                    plugin.getLogger().info("Location unsafe: claimed area");
-                }
-                return false;
-            }
-
-            if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                plugin.getLogger().info("Location SAFE: " + x + "," + y + "," + z + " in " + world.getName());
-            }
-            return true;
-        } catch (Exception e) {
-            if (plugin.getConfigManager().getBoolean("plugin.debug")) {
-                plugin.getLogger().warning("Error checking location safety: " + e.getMessage());
-            }
-            return false;
-        }
-    }
-
-    private boolean isUnsafeBlock(Material material) {
-        List<String> unsafeBlocks = plugin.getConfigManager().getStringList("teleport.unsafe-blocks");
-        String materialName = material.name();
-
-        for (String unsafeBlock : unsafeBlocks) {
-            if (materialName.equalsIgnoreCase(unsafeBlock)) {
-                return true;
-            }
-        }
-
-        return material == Material.LAVA ||
-                material == Material.MAGMA_BLOCK ||
-                material == Material.FIRE ||
-                material == Material.SOUL_FIRE ||
-                material == Material.CAMPFIRE ||
-                material == Material.SOUL_CAMPFIRE ||
-                material == Material.CACTUS;
-    }
-
-    private boolean hasUnsafeSurroundings(World world, int x, int y, int z) {
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dz = -1; dz <= 1; dz++) {
-                for (int dy = -1; dy <= 2; dy++) {
-                    Block block = world.getBlockAt(x + dx, y + dy, z + dz);
-                    Material type = block.getType();
-
-                    if (type == Material.LAVA || type == Material.FIRE || type == Material.SOUL_FIRE) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
-    private void waitForLocationSearch(TeleportSession session, WorldManager.WorldSettings worldSettings) {
-        new BukkitRunnable() {
-            private int waitTime = 0;
-            private final int maxWait = 100; // ~5 seconds
-
-            @Override
-            public void run() {
-                if (worldSettings == null) {
-                    handleSearchFailed(session, null);
-                    this.cancel();
-                    return;
-                }
-
-                String bukkitWorldName = worldSettings.getBukkitWorldName();
-                if (!activeSearches.contains(bukkitWorldName)) {
-                    Location location = getCachedLocation(bukkitWorldName);
-                    if (location != null) {
-                        teleportPlayersAsync(session, location);
-                    } else {
-                        handleSearchFailed(session, worldSettings);
-                    }
-                    this.cancel();
-                    return;
-                }
-
-                if (waitTime >= maxWait) {
-                    handleSearchTimeout(session, worldSettings);
-                    this.cancel();
-                    return;
+                    plugin.getLogger().warning("Error in location search: " + error.getMessage());
                 }
-
-                waitTime++;
+                handleSearchFailed(session, worldSettings);
+            } else if (location == null) {
+                handleSearchFailed(session, worldSettings);
+            } else {
+                teleportPlayersAsync(session, location);
             }
-        }.runTaskTimer(plugin, 1L, 1L);
+        });
     }
 
     private void handleSearchTimeout(TeleportSession session, WorldManager.WorldSettings worldSettings) {
@@ -526,7 +232,7 @@ public class TeleportManager {
         Location spawn = world.getSpawnLocation();
         if (spawn != null) {
             Location candidate = spawn.clone().add(0, 1, 0);
-            if (isSafeLocationDetailed(candidate)) {
+            if (plugin.getLocationFinder().isSafeLocation(candidate)) {
                 return candidate;
             }
         }
@@ -546,7 +252,7 @@ public class TeleportManager {
 
         Location candidate = spawn.clone().add(0, 1, 0);
         // Return spawn even if not fully passing isSafeLocationDetailed (log when debug enabled)
-        if (!isSafeLocationDetailed(candidate) && plugin.getConfigManager().getBoolean("plugin.debug")) {
+        if (!plugin.getLocationFinder().isSafeLocation(candidate) && plugin.getConfigManager().getBoolean("plugin.debug")) {
             plugin.getLogger().warning("getFallbackLocationForce: returning spawn despite failing safety checks in world " + world.getName());
         }
         return candidate;
@@ -565,10 +271,38 @@ public class TeleportManager {
             return;
         }
 
-        // Cache location for this world (use bukkit world name)
-        cacheLocationForWorld(location.getWorld().getName());
+        // keep the next destinations away from this one
+        plugin.getLocationFinder().getDestinationSpacing().record(location.getWorld().getName(), location.getBlockX(), location.getBlockZ());
+
+        // once the players have arrived, harvest safe spots from the chunks they keep loaded
+        WorldManager.WorldSettings worldSettings = plugin.getWorldManager().getWorldSettings(session.getWorldKey());
+        plugin.getServer().getScheduler().runTaskLater(plugin,
+                () -> plugin.getLocationFinder().getHarvester().harvestAround(location, worldSettings), HARVEST_DELAY_TICKS);
+
+        // Group landing: give each player their own spot around the location instead of stacking them
+        if (validPlayers.size() > 1 && plugin.getConfigManager().getBoolean("teleport.group-landing.enabled", true)) {
+            plugin.getLocationFinder().disperse(location, validPlayers.size()).whenComplete((spots, error) -> {
+                if (!isSessionValid(session)) return;
+                teleportPlayers(session, error == null && spots != null ? spots : Collections.singletonList(location));
+            });
+            return;
+        }
+
+        teleportPlayers(session, Collections.singletonList(location));
+    }
+
+    /**
+     * Teleport each player of the session to their spot (the last spot is reused if there are fewer
+     * spots than players).
+     */
+    private void teleportPlayers(TeleportSession session, List<Location> spots) {
+        List<Player> validPlayers = getValidPlayers(session);
+        if (validPlayers.isEmpty()) return;
+
+        for (int i = 0; i < validPlayers.size(); i++) {
+            Player player = validPlayers.get(i);
+            Location location = spots.get(Math.min(i, spots.size() - 1));
 
-        for (Player player : validPlayers) {
             // Remove from queue now (we don't want them to remain in queue while teleporting)
             plugin.getQueueHandler().removeFromQueue(player);
 
@@ -617,67 +351,18 @@ public class TeleportManager {
         }
     }
 
+    /**
+     * Take a location from the pool. The pool only hands out entries that are validated and whose
+     * chunk has not been inhabited since (stale ones are revalidated in the background), so no block
+     * is read and no chunk is loaded here.
+     */
     private Location getCachedLocation(String bukkitWorldName) {
-        Queue<Location> cached = locationCache.get(bukkitWorldName);
-        if (cached != null && !cached.isEmpty()) {
-            Location location = cached.poll();
-            if (isSafeLocationDetailed(location)) {
-                return location;
-            }
-        }
-        return null;
-    }
-
-    private void preloadLocations() {
-        if (!plugin.getConfigManager().getBoolean("teleport.cache-safe-locations")) return;
+        if (plugin.getLocationPool() == null) return null;
 
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                // iterate configured valid world keys and convert to bukkit names
-                for (String worldKey : plugin.getWorldManager().getValidWorldNames()) {
-                    WorldManager.WorldSettings ws = plugin.getWorldManager().getWorldSettings(worldKey);
-                    if (ws == null) continue;
-                    cacheLocationForWorld(ws.getBukkitWorldName());
-                }
-            }
-        }.runTaskAsynchronously(plugin);
-    }
-
-    private void cacheLocationForWorld(String bukkitWorldName) {
-        if (bukkitWorldName == null || activeSearches.contains(bukkitWorldName)) return;
-
-        int maxCached = plugin.getConfigManager().getInt("teleport.max-cached-locations", 10);
-        Queue<Location> cached = locationCache.computeIfAbsent(bukkitWorldName, k -> new LinkedList<>());
-
-        if (cached.size() >= maxCached) return;
-
-        // create async task to generate a few safe locations
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                World w = Bukkit.getWorld(bukkitWorldName);
-                if (w == null) return;
-                // try to get worldSettings by bukkit name (fallback to any matching config entry)
-                WorldManager.WorldSettings worldSettings = null;
-                // find corresponding config key
-                for (String key : plugin.getWorldManager().getValidWorldNames()) {
-                    WorldManager.WorldSettings ws = plugin.getWorldManager().getWorldSettings(key);
-                    if (ws != null && bukkitWorldName.equalsIgnoreCase(ws.getBukkitWorldName())) {
-                        worldSettings = ws;
-                        break;
-                    }
-                }
-                if (worldSettings == null) return;
-
-                for (int i = 0; i < 3 && cached.size() < maxCached; i++) {
-                    Location location = generateSafeLocationSync(worldSettings);
-                    if (location != null) {
-                        cached.offer(location);
-                    }
-                }
-            }
-        }.runTaskAsynchronously(plugin);
+        DestinationSpacing spacing = plugin.getLocationFinder().getDestinationSpacing();
+        // entries near a recent destination stay pooled for later sessions
+        return plugin.getLocationPool().take(bukkitWorldName,
+                candidate -> !spacing.isTooClose(bukkitWorldName, candidate.getBlockX(), candidate.getBlockZ()));
     }
 
     public void cancelSession(TeleportSession session, String reason) {
@@ -689,6 +374,10 @@ public class TeleportManager {
             session.getCountdownTask().cancel();
         }
 
+        if (session.getLocationSearch() != null) {
+            session.getLocationSearch().cancel(false);
+        }
+
         for (UUID playerUUID : session.getPlayerUUIDs()) {
             activeSessions.remove(playerUUID);
         }
@@ -756,8 +445,6 @@ public class TeleportManager {
             cancelSession(session, "shutdown");
         }
         activeSessions.clear();
-        locationCache.clear();
-        activeSearches.clear();
     }
 
     /**
@@ -768,6 +455,7 @@ public class TeleportManager {
         private final Set<UUID> playerUUIDs;
         private final String worldKey; // configured key (e.g. "nether", "end")
         private BukkitTask countdownTask;
+        private CompletableFuture<Location> locationSearch;
 
         public TeleportSession(String sessionId, List<Player> players, String worldKey) {
             this.sessionId = sessionId;
@@ -783,6 +471,8 @@ public class TeleportManager {
         public String getWorldKey() { return worldKey; }
         public BukkitTask getCountdownTask() { return countdownTask; }
         public void setCountdownTask(BukkitTask countdownTask) { this.countdownTask = countdownTask; }
+        public CompletableFuture<Location> getLocationSearch() { return locationSearch; }
+        public void setLocationSearch(CompletableFuture<Location> locationSearch) { this.locationSearch = locationSearch; }
         public void removePlayer(UUID playerUUID) { playerUUIDs.remove(playerUUID); }
     }
 }
\ No newline at end of file
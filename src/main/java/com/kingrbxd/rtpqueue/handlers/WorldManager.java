@@ -1,10 +1,14 @@
 package com.kingrbxd.rtpqueue.handlers;
 
 import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import com.kingrbxd.rtpqueue.search.SearchStrategy;
 import org.bukkit.World;
+import org.bukkit.block.Biome;
 import org.bukkit.configuration.ConfigurationSection;
 
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * FIXED: World manager with proper world name handling
@@ -14,6 +18,8 @@ import java.util.*;
  */
 public class WorldManager {
     private final AdvancedRTPQueue plugin;
+    private static final Pattern BAND_PATTERN = Pattern.compile("\\s*(-?\\d+)\\s*-\\s*(-?\\d+)\\s*");
+
     private final Map<String, WorldSettings> worldSettings = new HashMap<>();
 
     public WorldManager(AdvancedRTPQueue plugin) {
@@ -40,7 +46,11 @@ public class WorldManager {
                 plugin.getConfigManager().getInt("teleport.max-z", 1000),
                 plugin.getConfigManager().getInt("teleport.min-y", 60),
                 plugin.getConfigManager().getInt("teleport.max-y", 250),
-                plugin.getConfigManager().getInt("teleport.max-attempts", 100)
+                plugin.getConfigManager().getInt("teleport.max-attempts", 100),
+                parseBiomes(plugin.getConfigManager().getStringList("teleport.blocked-biomes"), "teleport.blocked-biomes"),
+                plugin.getConfigManager().getBoolean("teleport.loaded-chunks-only", false),
+                parseStrategy(plugin.getConfigManager().getString("teleport.strategy", "auto"), "teleport.strategy"),
+                parseBands(plugin.getConfigManager().getStringList("teleport.cavern-bands"), "teleport.cavern-bands")
         );
 
         worldSettings.put(defaultWorld, defaultSettings);
@@ -68,7 +78,11 @@ public class WorldManager {
                                     worldSection.getInt("max-z", 500),
                                     worldSection.getInt("min-y", 30),
                                     worldSection.getInt("max-y", 120),
-                                    worldSection.getInt("max-attempts", 50)
+                                    worldSection.getInt("max-attempts", 50),
+                                    parseBiomes(worldSection.getStringList("blocked-biomes"), "teleport.other-worlds.worlds." + key + ".blocked-biomes"),
+                                    worldSection.getBoolean("loaded-chunks-only", false),
+                                    parseStrategy(worldSection.getString("strategy", "auto"), "teleport.other-worlds.worlds." + key + ".strategy"),
+                                    parseBands(worldSection.getStringList("cavern-bands"), "teleport.other-worlds.worlds." + key + ".cavern-bands")
                             );
 
                             // Use the config key name (nether, end) as the identifier
@@ -82,6 +96,59 @@ public class WorldManager {
         plugin.getLogger().info("Loaded " + worldSettings.size() + " world configurations");
     }
 
+    /**
+     * Parse a biome blacklist, warning about names that are not biomes on this server version.
+     */
+    private Set<Biome> parseBiomes(List<String> names, String path) {
+        Set<Biome> biomes = EnumSet.noneOf(Biome.class);
+        if (names == null) return biomes;
+
+        for (String name : names) {
+            if (name == null || name.trim().isEmpty()) continue;
+            try {
+                biomes.add(Biome.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Unknown biome in " + path + ": " + name);
+            }
+        }
+        return biomes;
+    }
+
+    /**
+     * Parse a search strategy; null means auto (chosen by the world's environment).
+     */
+    private SearchStrategy parseStrategy(String name, String path) {
+        if (name == null || name.trim().isEmpty() || name.trim().equalsIgnoreCase("auto")) return null;
+
+        SearchStrategy strategy = SearchStrategy.parse(name);
+        if (strategy == null) {
+            plugin.getLogger().warning("Unknown search strategy in " + path + ": " + name + " (using auto)");
+        }
+        return strategy;
+    }
+
+    /**
+     * Parse cavern Y bands written as "min-max" into {min, max, min, max, ...}, in config order.
+     */
+    private int[] parseBands(List<String> bands, String path) {
+        if (bands == null || bands.isEmpty()) return new int[0];
+
+        int[] parsed = new int[bands.size() * 2];
+        int n = 0;
+        for (String band : bands) {
+            Matcher matcher = BAND_PATTERN.matcher(band != null ? band : "");
+            if (!matcher.matches()) {
+                plugin.getLogger().warning("Invalid Y band in " + path + ": " + band + " (expected min-max)");
+                continue;
+            }
+            int a = Integer.parseInt(matcher.group(1));
+            int b = Integer.parseInt(matcher.group(2));
+            parsed[n++] = Math.min(a, b);
+            parsed[n++] = Math.max(a, b);
+        }
+        return Arrays.copyOf(parsed, n);
+    }
+
     /**
      * Strip color codes for tab completion
      */
@@ -218,9 +285,14 @@ public class WorldManager {
         private final String permission;
         private final int minX, maxX, minZ, maxZ, minY, maxY;
         private final int maxTeleportAttempts;
+        private final Set<Biome> blockedBiomes;
+        private final boolean loadedChunksOnly; // only search chunks that are already loaded
+        private final SearchStrategy strategy;  // null: by environment
+        private final int[] cavernBands;        // {min, max, ...}; empty: min-y..max-y
 
         public WorldSettings(String worldKey, String bukkitWorldName, String cleanDisplayName, String displayName, String permission,
-                             int minX, int maxX, int minZ, int maxZ, int minY, int maxY, int maxTeleportAttempts) {
+                             int minX, int maxX, int minZ, int maxZ, int minY, int maxY, int maxTeleportAttempts,
+                             Set<Biome> blockedBiomes, boolean loadedChunksOnly, SearchStrategy strategy, int[] cavernBands) {
             this.worldKey = worldKey;
             this.bukkitWorldName = bukkitWorldName;
             this.cleanDisplayName = cleanDisplayName;
@@ -233,6 +305,12 @@ public class WorldManager {
             this.minY = minY;
             this.maxY = maxY;
             this.maxTeleportAttempts = maxTeleportAttempts;
+            this.blockedBiomes = blockedBiomes != null && !blockedBiomes.isEmpty()
+                    ? Collections.unmodifiableSet(EnumSet.copyOf(blockedBiomes))
+                    : Collections.emptySet();
+            this.loadedChunksOnly = loadedChunksOnly;
+            this.strategy = strategy;
+            this.cavernBands = cavernBands != null && cavernBands.length > 0 ? cavernBands.clone() : new int[]{minY, maxY};
         }
 
         // Getters
@@ -249,6 +327,22 @@ public class WorldManager {
         public int getMinY() { return minY; }
         public int getMaxY() { return maxY; }
         public int getMaxTeleportAttempts() { return maxTeleportAttempts; }
+        public Set<Biome> getBlockedBiomes() { return blockedBiomes; }
+        public boolean isLoadedChunksOnly() { return loadedChunksOnly; }
+        public int[] getCavernBands() { return cavernBands.clone(); }
+
+        /**
+         * The configured search strategy, or the one for the world's environment when set to auto.
+         */
+        public SearchStrategy getStrategy() {
+            if (strategy != null) return strategy;
+            World world = getBukkitWorld();
+            return world != null ? SearchStrategy.forEnvironment(world.getEnvironment()) : SearchStrategy.SURFACE;
+        }
+
+        public boolean isBiomeBlocked(Biome biome) {
+            return biome != null && blockedBiomes.contains(biome);
+        }
 
         public World getBukkitWorld() {
             return org.bukkit.Bukkit.getWorld(bukkitWorldName);
@@ -0,0 +1,37 @@
+package com.kingrbxd.rtpqueue.listeners;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * Keeps the location search's LoadedChunkIndex in sync with the chunks the server has loaded, and
+ * lets the location pool mark entries stale when their chunk unloads after players were around
+ */
+public class ChunkIndexListener implements Listener {
+    private final AdvancedRTPQueue plugin;
+
+    public ChunkIndexListener(AdvancedRTPQueue plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        if (plugin.getLocationFinder() != null) {
+            plugin.getLocationFinder().getLoadedChunkIndex().add(event.getChunk());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (plugin.getLocationFinder() != null) {
+            plugin.getLocationFinder().getLoadedChunkIndex().remove(event.getChunk());
+        }
+        if (plugin.getLocationPool() != null) {
+            plugin.getLocationPool().onChunkUnload(event.getChunk());
+        }
+    }
+}
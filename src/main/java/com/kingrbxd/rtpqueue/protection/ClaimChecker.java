@@ -1,12 +1,26 @@
 package com.kingrbxd.rtpqueue.protection;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for checking if a location is within claimed land
+ *
+ * Besides single locations, integrations can answer whole chunks, rectangles and batches of columns,
+ * so the search can discard claimed chunks or regions in one call. The defaults fall back to the
+ * finer-grained methods; integrations override them with native lookups where their plugin allows.
  */
 public interface ClaimChecker {
 
+    /**
+     * Largest rectangle, in chunks, the default region query walks chunk by chunk
+     */
+    int MAX_REGION_CHUNKS = 4096;
+
     /**
      * Check if a location is within claimed land
      *
@@ -14,4 +28,129 @@ public interface ClaimChecker {
      * @return true if the location is claimed, false otherwise
      */
     boolean isLocationClaimed(Location location);
+
+    /**
+     * Check a whole chunk at once. Integrations whose claims are chunk-aligned or that can list the
+     * claims of a chunk answer CLAIMED or UNCLAIMED; the default is PARTIAL (check each location).
+     *
+     * @param world The world of the chunk
+     * @param chunkX The chunk's x coordinate
+     * @param chunkZ The chunk's z coordinate
+     * @return the verdict for the whole chunk
+     */
+    default ClaimVerdict getChunkVerdict(World world, int chunkX, int chunkZ) {
+        return ClaimVerdict.PARTIAL;
+    }
+
+    /**
+     * Check a block rectangle at once: CLAIMED if it is claimed everywhere, UNCLAIMED if no claim
+     * intersects it, PARTIAL otherwise (or if that is not known). The default combines the verdicts
+     * of the chunks it touches, up to MAX_REGION_CHUNKS of them.
+     *
+     * @param world The world of the rectangle
+     * @param minX The lowest block x, inclusive
+     * @param minZ The lowest block z, inclusive
+     * @param maxX The highest block x, inclusive
+     * @param maxZ The highest block z, inclusive
+     * @return the verdict for the whole rectangle
+     */
+    default ClaimVerdict getRegionVerdict(World world, int minX, int minZ, int maxX, int maxZ) {
+        int minChunkX = Math.min(minX, maxX) >> 4;
+        int maxChunkX = Math.max(minX, maxX) >> 4;
+        int minChunkZ = Math.min(minZ, maxZ) >> 4;
+        int maxChunkZ = Math.max(minZ, maxZ) >> 4;
+        if (((long) maxChunkX - minChunkX + 1) * ((long) maxChunkZ - minChunkZ + 1) > MAX_REGION_CHUNKS) {
+            return ClaimVerdict.PARTIAL;
+        }
+
+        boolean allClaimed = true;
+        boolean allFree = true;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                ClaimVerdict verdict = getChunkVerdict(world, chunkX, chunkZ);
+                if (verdict != ClaimVerdict.CLAIMED) allClaimed = false;
+                if (verdict != ClaimVerdict.UNCLAIMED) allFree = false;
+                if (!allClaimed && !allFree) return ClaimVerdict.PARTIAL;
+            }
+        }
+        return allFree ? ClaimVerdict.UNCLAIMED : ClaimVerdict.CLAIMED;
+    }
+
+    /**
+     * Check a batch of columns. The default reuses one Location for isLocationClaimed.
+     *
+     * @param world The world of the columns
+     * @param columns Block coordinates as x, z pairs
+     * @return for each pair, whether it is claimed
+     */
+    default boolean[] areClaimed(World world, int[] columns) {
+        boolean[] claimed = new boolean[columns.length / 2];
+        Location location = new Location(world, 0, world.getMinHeight(), 0);
+        for (int i = 0; i < claimed.length; i++) {
+            location.setX(columns[i * 2] + 0.5);
+            location.setZ(columns[i * 2 + 1] + 0.5);
+            claimed[i] = isLocationClaimed(location);
+        }
+        return claimed;
+    }
+
+    /**
+     * getChunkVerdict from any thread. The default answers right away on the main thread and
+     * schedules the check there otherwise; integrations whose lookups are thread-safe answer directly.
+     *
+     * @param plugin The plugin to schedule the check for
+     * @param world The world of the chunk
+     * @param chunkX The chunk's x coordinate
+     * @param chunkZ The chunk's z coordinate
+     * @return the verdict, completed on the main thread unless the integration is thread-safe
+     */
+    default CompletableFuture<ClaimVerdict> getChunkVerdictAsync(Plugin plugin, World world, int chunkX, int chunkZ) {
+        if (Bukkit.isPrimaryThread()) {
+            return CompletableFuture.completedFuture(getChunkVerdict(world, chunkX, chunkZ));
+        }
+
+        CompletableFuture<ClaimVerdict> future = new CompletableFuture<>();
+        try {
+            Bukkit.getScheduler().runTask(plugin, () -> future.complete(getChunkVerdict(world, chunkX, chunkZ)));
+        } catch (Exception e) {
+            future.complete(ClaimVerdict.PARTIAL); // plugin disabled
+        }
+        return future;
+    }
+
+    /**
+     * getRegionVerdict from any thread, like getChunkVerdictAsync.
+     *
+     * @param plugin The plugin to schedule the check for
+     * @param world The world of the rectangle
+     * @param minX The lowest block x, inclusive
+     * @param minZ The lowest block z, inclusive
+     * @param maxX The highest block x, inclusive
+     * @param maxZ The highest block z, inclusive
+     * @return the verdict, completed on the main thread unless the integration is thread-safe
+     */
+    default CompletableFuture<ClaimVerdict> getRegionVerdictAsync(Plugin plugin, World world, int minX, int minZ, int maxX, int maxZ) {
+        if (Bukkit.isPrimaryThread()) {
+            return CompletableFuture.completedFuture(getRegionVerdict(world, minX, minZ, maxX, maxZ));
+        }
+
+        CompletableFuture<ClaimVerdict> future = new CompletableFuture<>();
+        try {
+            Bukkit.getScheduler().runTask(plugin, () -> future.complete(getRegionVerdict(world, minX, minZ, maxX, maxZ)));
+        } catch (Exception e) {
+            future.complete(ClaimVerdict.PARTIAL); // plugin disabled
+        }
+        return future;
+    }
+
+    /**
+     * Add the bounding box of every claim to the collector, for the spatial claim index.
+     * Called on the main thread.
+     *
+     * @param collector Receives one box per claim
+     * @return false if the integration cannot list its claims (the index is not used then)
+     */
+    default boolean collectClaims(ClaimIndex.Collector collector) {
+        return false;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,292 @@
+package com.kingrbxd.rtpqueue.protection;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ClaimIndex
+ *
+ * The bounding box of every claim per world, so claim checks can run on the search workers without
+ * touching the claim plugins (which are main-thread only).
+ *
+ * - Boxes are bucketed into a grid of 256-block cells; each cell holds the boxes touching it as flat
+ *   minX, minZ, maxX, maxZ quadruples, so a lookup is one map get plus a handful of box tests
+ * - Boxes spanning more than MAX_CELLS_PER_BOX cells (huge admin claims) are kept in a short list
+ *   that every lookup tests instead
+ * - A world is built in one go from the integrations' claims (publish) and then kept current from claim
+ *   events one box at a time (add, remove); an update only replaces the cells its box touches
+ * - Cell arrays are never changed in place, so a reader always sees a whole cell
+ *
+ * Updates happen on the main thread; lookups are safe from any thread.
+ */
+public class ClaimIndex {
+    private static final int CELL_SHIFT = 8; // 256 blocks
+    private static final int MAX_CELLS_PER_BOX = 64;
+    private static final int[] NO_BOXES = new int[0];
+
+    private final Map<String, Grid> grids = new ConcurrentHashMap<>(); // key: bukkit world name
+
+    /**
+     * Whether x/z lies in a claim.
+     */
+    public boolean isClaimed(String worldName, int x, int z) {
+        return intersects(worldName, x, z, x, z);
+    }
+
+    /**
+     * Whether any claim intersects the block rectangle.
+     */
+    public boolean intersects(String worldName, int minX, int minZ, int maxX, int maxZ) {
+        Grid grid = grids.get(worldName);
+        return grid != null && grid.intersects(minX, minZ, maxX, maxZ);
+    }
+
+    /**
+     * Whether one claim covers the whole block rectangle.
+     */
+    public boolean covers(String worldName, int minX, int minZ, int maxX, int maxZ) {
+        Grid grid = grids.get(worldName);
+        return grid != null && grid.covers(minX, minZ, maxX, maxZ);
+    }
+
+    /**
+     * Replace a world's boxes with the given ones (flat minX, minZ, maxX, maxZ quadruples).
+     */
+    public void publish(String worldName, int[] boxes) {
+        grids.put(worldName, new Grid(boxes));
+    }
+
+    /**
+     * Add the box of a claim that was created or grown.
+     */
+    public void add(String worldName, int minX, int minZ, int maxX, int maxZ) {
+        grids.computeIfAbsent(worldName, k -> new Grid(NO_BOXES))
+                .add(Math.min(minX, maxX), Math.min(minZ, maxZ), Math.max(minX, maxX), Math.max(minZ, maxZ));
+    }
+
+    /**
+     * Remove one box equal to the given one (a claim that was deleted or resized).
+     *
+     * @return false if the world holds no such box
+     */
+    public boolean remove(String worldName, int minX, int minZ, int maxX, int maxZ) {
+        Grid grid = grids.get(worldName);
+        return grid != null
+                && grid.remove(Math.min(minX, maxX), Math.min(minZ, maxZ), Math.max(minX, maxX), Math.max(minZ, maxZ));
+    }
+
+    public int size(String worldName) {
+        Grid grid = grids.get(worldName);
+        return grid != null ? grid.size : 0;
+    }
+
+    public Set<String> getWorldNames() {
+        return Collections.unmodifiableSet(grids.keySet());
+    }
+
+    public void clear() {
+        grids.clear();
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return (long) cellX << 32 | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static boolean isLarge(int minX, int minZ, int maxX, int maxZ) {
+        long cells = ((long) (maxX >> CELL_SHIFT) - (minX >> CELL_SHIFT) + 1) * ((long) (maxZ >> CELL_SHIFT) - (minZ >> CELL_SHIFT) + 1);
+        return cells > MAX_CELLS_PER_BOX;
+    }
+
+    private static boolean overlapsAny(int[] boxes, int minX, int minZ, int maxX, int maxZ) {
+        for (int i = 0; i < boxes.length; i += 4) {
+            if (boxes[i] <= maxX && boxes[i + 2] >= minX && boxes[i + 1] <= maxZ && boxes[i + 3] >= minZ) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsAny(int[] boxes, int minX, int minZ, int maxX, int maxZ) {
+        for (int i = 0; i < boxes.length; i += 4) {
+            if (boxes[i] <= minX && boxes[i + 2] >= maxX && boxes[i + 1] <= minZ && boxes[i + 3] >= maxZ) return true;
+        }
+        return false;
+    }
+
+    private static int indexOf(int[] boxes, int minX, int minZ, int maxX, int maxZ) {
+        for (int i = 0; i < boxes.length; i += 4) {
+            if (boxes[i] == minX && boxes[i + 1] == minZ && boxes[i + 2] == maxX && boxes[i + 3] == maxZ) return i;
+        }
+        return -1;
+    }
+
+    private static int[] append(int[] boxes, int minX, int minZ, int maxX, int maxZ) {
+        int[] copy = Arrays.copyOf(boxes, boxes.length + 4);
+        copy[boxes.length] = minX;
+        copy[boxes.length + 1] = minZ;
+        copy[boxes.length + 2] = maxX;
+        copy[boxes.length + 3] = maxZ;
+        return copy;
+    }
+
+    private static int[] without(int[] boxes, int index) {
+        int[] copy = new int[boxes.length - 4];
+        System.arraycopy(boxes, 0, copy, 0, index);
+        System.arraycopy(boxes, index + 4, copy, index, copy.length - index);
+        return copy;
+    }
+
+    /**
+     * Collects claim boxes per world from the integrations (ClaimChecker.collectClaims).
+     */
+    public static final class Collector {
+        private final Map<String, int[]> boxes = new HashMap<>();
+        private final Map<String, Integer> sizes = new HashMap<>();
+
+        public void add(String worldName, int minX, int minZ, int maxX, int maxZ) {
+            if (worldName == null) return;
+
+            int size = sizes.getOrDefault(worldName, 0);
+            int[] array = boxes.get(worldName);
+            if (array == null || size + 4 > array.length) {
+                array = array == null ? new int[64] : Arrays.copyOf(array, array.length * 2);
+                boxes.put(worldName, array);
+            }
+            array[size] = Math.min(minX, maxX);
+            array[size + 1] = Math.min(minZ, maxZ);
+            array[size + 2] = Math.max(minX, maxX);
+            array[size + 3] = Math.max(minZ, maxZ);
+            sizes.put(worldName, size + 4);
+        }
+
+        /**
+         * The collected boxes per world, trimmed to size.
+         */
+        public Map<String, int[]> getBoxes() {
+            Map<String, int[]> result = new HashMap<>();
+            for (Map.Entry<String, int[]> entry : boxes.entrySet()) {
+                result.put(entry.getKey(), Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey())));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * One world's boxes. Written by one thread at a time (the main thread), read from any.
+     */
+    private static final class Grid {
+        private final Map<Long, int[]> cells = new ConcurrentHashMap<>();
+        private volatile int[] large = NO_BOXES;
+        private volatile int size;
+
+        private Grid(int[] boxes) {
+            // count first so every cell array is allocated at its final length
+            Map<Long, int[]> lengths = new HashMap<>();
+            int largeLength = 0;
+            for (int i = 0; i + 3 < boxes.length; i += 4) {
+                if (isLarge(boxes[i], boxes[i + 1], boxes[i + 2], boxes[i + 3])) {
+                    largeLength += 4;
+                    continue;
+                }
+                for (int cellX = boxes[i] >> CELL_SHIFT; cellX <= boxes[i + 2] >> CELL_SHIFT; cellX++) {
+                    for (int cellZ = boxes[i + 1] >> CELL_SHIFT; cellZ <= boxes[i + 3] >> CELL_SHIFT; cellZ++) {
+                        lengths.computeIfAbsent(cellKey(cellX, cellZ), k -> new int[1])[0] += 4;
+                    }
+                }
+            }
+
+            Map<Long, int[]> filled = new HashMap<>();
+            int[] largeBoxes = new int[largeLength];
+            int n = 0;
+            for (int i = 0; i + 3 < boxes.length; i += 4) {
+                if (isLarge(boxes[i], boxes[i + 1], boxes[i + 2], boxes[i + 3])) {
+                    System.arraycopy(boxes, i, largeBoxes, n, 4);
+                    n += 4;
+                    continue;
+                }
+                for (int cellX = boxes[i] >> CELL_SHIFT; cellX <= boxes[i + 2] >> CELL_SHIFT; cellX++) {
+                    for (int cellZ = boxes[i + 1] >> CELL_SHIFT; cellZ <= boxes[i + 3] >> CELL_SHIFT; cellZ++) {
+                        long key = cellKey(cellX, cellZ);
+                        int[] length = lengths.get(key);
+                        int[] cell = filled.computeIfAbsent(key, k -> new int[length[0]]);
+                        int offset = cell.length - length[0];
+                        System.arraycopy(boxes, i, cell, offset, 4);
+                        length[0] -= 4;
+                    }
+                }
+            }
+            cells.putAll(filled);
+            large = largeBoxes;
+            size = boxes.length / 4;
+        }
+
+        private void add(int minX, int minZ, int maxX, int maxZ) {
+            if (isLarge(minX, minZ, maxX, maxZ)) {
+                large = append(large, minX, minZ, maxX, maxZ);
+            } else {
+                for (int cellX = minX >> CELL_SHIFT; cellX <= maxX >> CELL_SHIFT; cellX++) {
+                    for (int cellZ = minZ >> CELL_SHIFT; cellZ <= maxZ >> CELL_SHIFT; cellZ++) {
+                        long key = cellKey(cellX, cellZ);
+                        cells.put(key, append(cells.getOrDefault(key, NO_BOXES), minX, minZ, maxX, maxZ));
+                    }
+                }
+            }
+            size++;
+        }
+
+        private boolean remove(int minX, int minZ, int maxX, int maxZ) {
+            if (isLarge(minX, minZ, maxX, maxZ)) {
+                int index = indexOf(large, minX, minZ, maxX, maxZ);
+                if (index < 0) return false;
+                large = without(large, index);
+                size--;
+                return true;
+            }
+
+            // a box is listed in every cell it touches, so its corner cell tells whether it is held
+            int[] corner = cells.get(cellKey(minX >> CELL_SHIFT, minZ >> CELL_SHIFT));
+            if (corner == null || indexOf(corner, minX, minZ, maxX, maxZ) < 0) return false;
+
+            for (int cellX = minX >> CELL_SHIFT; cellX <= maxX >> CELL_SHIFT; cellX++) {
+                for (int cellZ = minZ >> CELL_SHIFT; cellZ <= maxZ >> CELL_SHIFT; cellZ++) {
+                    long key = cellKey(cellX, cellZ);
+                    int[] cell = cells.get(key);
+                    int index = indexOf(cell, minX, minZ, maxX, maxZ);
+                    if (cell.length == 4) {
+                        cells.remove(key);
+                    } else {
+                        cells.put(key, without(cell, index));
+                    }
+                }
+            }
+            size--;
+            return true;
+        }
+
+        private boolean intersects(int minX, int minZ, int maxX, int maxZ) {
+            if (overlapsAny(large, minX, minZ, maxX, maxZ)) return true;
+
+            long area = ((long) (maxX >> CELL_SHIFT) - (minX >> CELL_SHIFT) + 1) * ((long) (maxZ >> CELL_SHIFT) - (minZ >> CELL_SHIFT) + 1);
+            if (area > cells.size()) {
+                // a rectangle wider than the populated grid: test every cell instead
+                for (int[] cell : cells.values()) {
+                    if (overlapsAny(cell, minX, minZ, maxX, maxZ)) return true;
+                }
+                return false;
+            }
+            for (int cellX = minX >> CELL_SHIFT; cellX <= maxX >> CELL_SHIFT; cellX++) {
+                for (int cellZ = minZ >> CELL_SHIFT; cellZ <= maxZ >> CELL_SHIFT; cellZ++) {
+                    int[] cell = cells.get(cellKey(cellX, cellZ));
+                    if (cell != null && overlapsAny(cell, minX, minZ, maxX, maxZ)) return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean covers(int minX, int minZ, int maxX, int maxZ) {
+            if (containsAny(large, minX, minZ, maxX, maxZ)) return true;
+
+            // a covering box is listed in the cell of the rectangle's corner
+            int[] cell = cells.get(cellKey(minX >> CELL_SHIFT, minZ >> CELL_SHIFT));
+            return cell != null && containsAny(cell, minX, minZ, maxX, maxZ);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.kingrbxd.rtpqueue.protection;
+
+/**
+ * What the claim integrations know about a whole chunk
+ */
+public enum ClaimVerdict {
+    /** Every block of the chunk is claimed */
+    CLAIMED,
+    /** No claim touches the chunk */
+    UNCLAIMED,
+    /** Partly claimed, or not known for the whole chunk; each location has to be checked */
+    PARTIAL
+}
@@ -0,0 +1,211 @@
+package com.kingrbxd.rtpqueue.protection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ClaimVerdictCache
+ *
+ * Remembers the ClaimVerdict of every chunk the claim check has looked at, per world, so repeat checks
+ * in the same chunk skip the claim plugins entirely.
+ *
+ * - Chunks are packed as x << 32 | z and kept in an open-addressing table of primitive longs, so a
+ *   lookup is a hash probe without boxing
+ * - Entries are dropped by the claim integrations' create/delete/resize events (invalidate), and
+ *   expire after a while as a safety net for changes that fire no event
+ * - A world's table is emptied once it holds maxChunks entries
+ *
+ * Main thread only.
+ */
+public class ClaimVerdictCache {
+    private static final ClaimVerdict[] VERDICTS = ClaimVerdict.values();
+
+    private final Map<String, WorldTable> worlds = new HashMap<>(); // key: bukkit world name
+    private final long epoch = System.currentTimeMillis();
+    private final long expiryMillis;
+    private final int maxChunks;
+
+    public ClaimVerdictCache(long expiryMillis, int maxChunks) {
+        this.expiryMillis = Math.max(1000L, expiryMillis);
+        this.maxChunks = Math.max(64, maxChunks);
+    }
+
+    /**
+     * The cached verdict of a chunk, or null if it is unknown or expired.
+     */
+    public ClaimVerdict get(String worldName, int chunkX, int chunkZ) {
+        WorldTable table = worlds.get(worldName);
+        if (table == null) return null;
+
+        long key = pack(chunkX, chunkZ);
+        int packed = table.get(key);
+        if (packed == 0) return null;
+
+        if ((packed >>> 2) <= now()) {
+            table.remove(key);
+            return null;
+        }
+        return VERDICTS[(packed & 3) - 1];
+    }
+
+    public void put(String worldName, int chunkX, int chunkZ, ClaimVerdict verdict) {
+        WorldTable table = worlds.computeIfAbsent(worldName, k -> new WorldTable());
+        if (table.size >= maxChunks) {
+            table.clear();
+        }
+
+        long expiresAt = now() + expiryMillis / 1000L + 1;
+        int packed = (int) Math.min(Integer.MAX_VALUE >> 2, expiresAt) << 2 | (verdict.ordinal() + 1);
+        table.put(pack(chunkX, chunkZ), packed);
+    }
+
+    /**
+     * Drop the verdicts of every chunk touching the block rectangle minX..maxX / minZ..maxZ.
+     */
+    public void invalidate(String worldName, int minX, int minZ, int maxX, int maxZ) {
+        WorldTable table = worlds.get(worldName);
+        if (table == null || table.size == 0) return;
+
+        int minChunkX = Math.min(minX, maxX) >> 4;
+        int maxChunkX = Math.max(minX, maxX) >> 4;
+        int minChunkZ = Math.min(minZ, maxZ) >> 4;
+        int maxChunkZ = Math.max(minZ, maxZ) >> 4;
+
+        long area = ((long) maxChunkX - minChunkX + 1) * ((long) maxChunkZ - minChunkZ + 1);
+        if (area > table.size) {
+            // a huge claim: cheaper to walk the table than the rectangle
+            table.removeIf(minChunkX, maxChunkX, minChunkZ, maxChunkZ);
+            return;
+        }
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                table.remove(pack(chunkX, chunkZ));
+            }
+        }
+    }
+
+    /**
+     * Drop every verdict of a world, or of all worlds if worldName is null.
+     */
+    public void invalidateWorld(String worldName) {
+        if (worldName == null) {
+            worlds.clear();
+        } else {
+            worlds.remove(worldName);
+        }
+    }
+
+    public int size(String worldName) {
+        WorldTable table = worlds.get(worldName);
+        return table != null ? table.size : 0;
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    private long now() {
+        return (System.currentTimeMillis() - epoch) / 1000L;
+    }
+
+    private static long pack(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Linear-probing long -> int table; a value of 0 marks a free slot.
+     */
+    private static final class WorldTable {
+        private long[] keys = new long[256];
+        private int[] values = new int[256];
+        private int size = 0;
+
+        private int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; values[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+            }
+            return 0;
+        }
+
+        private void put(long key, int value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] != 0) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        private void remove(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] == 0) return;
+
+            // shift the following entries of the probe run back so lookups never stop early
+            int free = slot;
+            for (int next = (free + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - free) & mask)) {
+                    keys[free] = keys[next];
+                    values[free] = values[next];
+                    free = next;
+                }
+            }
+            values[free] = 0;
+            size--;
+        }
+
+        private void removeIf(int minChunkX, int maxChunkX, int minChunkZ, int maxChunkZ) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length];
+            values = new int[oldValues.length];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldValues[slot] == 0) continue;
+                int chunkX = (int) (oldKeys[slot] >> 32);
+                int chunkZ = (int) oldKeys[slot];
+                if (chunkX < minChunkX || chunkX > maxChunkX || chunkZ < minChunkZ || chunkZ > maxChunkZ) {
+                    put(oldKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[capacity];
+            values = new int[capacity];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldValues[slot] != 0) {
+                    put(oldKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+
+        private void clear() {
+            keys = new long[256];
+            values = new int[256];
+            size = 0;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
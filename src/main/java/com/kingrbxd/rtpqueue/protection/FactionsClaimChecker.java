@@ -3,10 +3,15 @@ package com.kingrbxd.rtpqueue.protection;
 import com.massivecraft.factions.Board;
 import com.massivecraft.factions.FLocation;
 import com.massivecraft.factions.Faction;
+import com.massivecraft.factions.Factions;
 import org.bukkit.Location;
+import org.bukkit.World;
 
 /**
  * Complete Factions claim checker
+ *
+ * Faction land is claimed per chunk, so chunk and batch checks are one board lookup per chunk and
+ * region checks use the default chunk walk, which is exact here.
  */
 public class FactionsClaimChecker implements ClaimChecker {
 
@@ -26,4 +31,57 @@ public class FactionsClaimChecker implements ClaimChecker {
             return false;
         }
     }
+
+    /**
+     * Faction land is claimed per chunk, so one board lookup answers the whole chunk
+     */
+    @Override
+    public ClaimVerdict getChunkVerdict(World world, int chunkX, int chunkZ) {
+        try {
+            Faction faction = Board.getInstance().getFactionAt(new FLocation(world.getName(), chunkX, chunkZ));
+            return faction != null && !faction.isWilderness() ? ClaimVerdict.CLAIMED : ClaimVerdict.UNCLAIMED;
+        } catch (Exception e) {
+            return ClaimVerdict.PARTIAL;
+        }
+    }
+
+    /**
+     * One board lookup per chunk the columns fall in
+     */
+    @Override
+    public boolean[] areClaimed(World world, int[] columns) {
+        boolean[] claimed = new boolean[columns.length / 2];
+        long lastChunk = Long.MIN_VALUE;
+        boolean chunkClaimed = false;
+
+        for (int i = 0; i < claimed.length; i++) {
+            int chunkX = columns[i * 2] >> 4;
+            int chunkZ = columns[i * 2 + 1] >> 4;
+            long chunk = (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+            if (chunk != lastChunk) {
+                lastChunk = chunk;
+                ClaimVerdict verdict = getChunkVerdict(world, chunkX, chunkZ);
+                if (verdict == ClaimVerdict.PARTIAL) {
+                    return ClaimChecker.super.areClaimed(world, columns); // lookup failed
+                }
+                chunkClaimed = verdict == ClaimVerdict.CLAIMED;
+            }
+            claimed[i] = chunkClaimed;
+        }
+        return claimed;
+    }
+
+    @Override
+    public boolean collectClaims(ClaimIndex.Collector collector) {
+        Board board = Board.getInstance();
+        for (Faction faction : Factions.getInstance().getAllFactions()) {
+            if (faction.isWilderness()) continue;
+            for (FLocation location : board.getAllClaims(faction)) {
+                int minX = (int) location.getX() << 4;
+                int minZ = (int) location.getZ() << 4;
+                collector.add(location.getWorldName(), minX, minZ, minX + 15, minZ + 15);
+            }
+        }
+        return true;
+    }
 }
\ No newline at end of file
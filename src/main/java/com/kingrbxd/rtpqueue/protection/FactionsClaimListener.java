@@ -0,0 +1,67 @@
+package com.kingrbxd.rtpqueue.protection;
+
+import com.kingrbxd.rtpqueue.handlers.ClaimProtectionHandler;
+import com.massivecraft.factions.Board;
+import com.massivecraft.factions.FLocation;
+import com.massivecraft.factions.Faction;
+import com.massivecraft.factions.event.FactionDisbandEvent;
+import com.massivecraft.factions.event.LandClaimEvent;
+import com.massivecraft.factions.event.LandUnclaimAllEvent;
+import com.massivecraft.factions.event.LandUnclaimEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Drops cached chunk verdicts and updates the claim index when Factions land is claimed or unclaimed
+ */
+public class FactionsClaimListener implements Listener {
+    private final ClaimProtectionHandler handler;
+
+    public FactionsClaimListener(ClaimProtectionHandler handler) {
+        this.handler = handler;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLandClaim(LandClaimEvent event) {
+        update(event.getLocation(), true);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLandUnclaim(LandUnclaimEvent event) {
+        update(event.getLocation(), false);
+    }
+
+    // both fire before the faction's land is released, so its claims can still be listed
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLandUnclaimAll(LandUnclaimAllEvent event) {
+        releaseAll(event.getFaction());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFactionDisband(FactionDisbandEvent event) {
+        releaseAll(event.getFaction());
+    }
+
+    private void releaseAll(Faction faction) {
+        if (faction == null) {
+            handler.invalidateClaims(null);
+            return;
+        }
+        for (FLocation location : Board.getInstance().getAllClaims(faction)) {
+            update(location, false);
+        }
+    }
+
+    private void update(FLocation location, boolean claimed) {
+        if (location == null) return;
+
+        int minX = (int) location.getX() << 4;
+        int minZ = (int) location.getZ() << 4;
+        if (claimed) {
+            handler.claimCreated(location.getWorldName(), minX, minZ, minX + 15, minZ + 15);
+        } else {
+            handler.claimDeleted(location.getWorldName(), minX, minZ, minX + 15, minZ + 15);
+        }
+    }
+}
@@ -3,6 +3,13 @@ package com.kingrbxd.rtpqueue.protection;
 import me.ryanhamshire.GriefPrevention.Claim;
 import me.ryanhamshire.GriefPrevention.GriefPrevention;
 import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 /**
  * Complete GriefPrevention claim checker
@@ -22,4 +29,146 @@ public class GriefPreventionClaimChecker implements ClaimChecker {
             return false;
         }
     }
+
+    /**
+     * GriefPrevention indexes its claims by chunk: no claim listed means the chunk is free, a claim
+     * spanning all 16x16 columns means it is fully claimed
+     */
+    @Override
+    public ClaimVerdict getChunkVerdict(World world, int chunkX, int chunkZ) {
+        try {
+            Collection<Claim> claims = GriefPrevention.instance.dataStore.getClaims(chunkX, chunkZ);
+            int minX = chunkX << 4;
+            int minZ = chunkZ << 4;
+            boolean touched = false;
+
+            for (Claim claim : claims) {
+                Location lesser = claim.getLesserBoundaryCorner();
+                Location greater = claim.getGreaterBoundaryCorner();
+                if (lesser == null || greater == null || !world.equals(lesser.getWorld())) continue;
+                if (greater.getBlockX() < minX || lesser.getBlockX() > minX + 15 ||
+                        greater.getBlockZ() < minZ || lesser.getBlockZ() > minZ + 15) continue;
+
+                if (lesser.getBlockX() <= minX && greater.getBlockX() >= minX + 15 &&
+                        lesser.getBlockZ() <= minZ && greater.getBlockZ() >= minZ + 15) {
+                    return ClaimVerdict.CLAIMED;
+                }
+                touched = true;
+            }
+            return touched ? ClaimVerdict.PARTIAL : ClaimVerdict.UNCLAIMED;
+        } catch (Exception e) {
+            return ClaimVerdict.PARTIAL;
+        }
+    }
+
+    /**
+     * Looks at the claims GriefPrevention lists for the chunks under the rectangle (or at every
+     * claim for rectangles wider than MAX_REGION_CHUNKS)
+     */
+    @Override
+    public ClaimVerdict getRegionVerdict(World world, int minX, int minZ, int maxX, int maxZ) {
+        try {
+            int lowX = Math.min(minX, maxX);
+            int highX = Math.max(minX, maxX);
+            int lowZ = Math.min(minZ, maxZ);
+            int highZ = Math.max(minZ, maxZ);
+
+            Collection<Claim> claims;
+            long area = ((long) (highX >> 4) - (lowX >> 4) + 1) * ((long) (highZ >> 4) - (lowZ >> 4) + 1);
+            if (area > MAX_REGION_CHUNKS) {
+                claims = GriefPrevention.instance.dataStore.getClaims();
+            } else {
+                Set<Claim> found = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (int chunkX = lowX >> 4; chunkX <= highX >> 4; chunkX++) {
+                    for (int chunkZ = lowZ >> 4; chunkZ <= highZ >> 4; chunkZ++) {
+                        found.addAll(GriefPrevention.instance.dataStore.getClaims(chunkX, chunkZ));
+                    }
+                }
+                claims = found;
+            }
+
+            boolean touched = false;
+            for (Claim claim : claims) {
+                Location lesser = claim.getLesserBoundaryCorner();
+                Location greater = claim.getGreaterBoundaryCorner();
+                if (lesser == null || greater == null || !world.equals(lesser.getWorld())) continue;
+                if (greater.getBlockX() < lowX || lesser.getBlockX() > highX ||
+                        greater.getBlockZ() < lowZ || lesser.getBlockZ() > highZ) continue;
+
+                if (lesser.getBlockX() <= lowX && greater.getBlockX() >= highX &&
+                        lesser.getBlockZ() <= lowZ && greater.getBlockZ() >= highZ) {
+                    return ClaimVerdict.CLAIMED;
+                }
+                touched = true;
+            }
+            return touched ? ClaimVerdict.PARTIAL : ClaimVerdict.UNCLAIMED;
+        } catch (Exception e) {
+            return ClaimVerdict.PARTIAL;
+        }
+    }
+
+    /**
+     * Tests the columns against the claim boxes of their chunk, fetched once per chunk
+     */
+    @Override
+    public boolean[] areClaimed(World world, int[] columns) {
+        boolean[] claimed = new boolean[columns.length / 2];
+        long lastChunk = Long.MIN_VALUE;
+        int[] boxes = new int[0];
+
+        for (int i = 0; i < claimed.length; i++) {
+            int x = columns[i * 2];
+            int z = columns[i * 2 + 1];
+            long chunk = (long) (x >> 4) << 32 | ((z >> 4) & 0xFFFFFFFFL);
+            if (chunk != lastChunk) {
+                lastChunk = chunk;
+                boxes = getClaimBoxes(world, x >> 4, z >> 4);
+                if (boxes == null) {
+                    return ClaimChecker.super.areClaimed(world, columns);
+                }
+            }
+            for (int b = 0; b < boxes.length; b += 4) {
+                if (boxes[b] <= x && boxes[b + 2] >= x && boxes[b + 1] <= z && boxes[b + 3] >= z) {
+                    claimed[i] = true;
+                    break;
+                }
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Flat minX, minZ, maxX, maxZ boxes of the claims listed for a chunk, or null if the lookup failed
+     */
+    private static int[] getClaimBoxes(World world, int chunkX, int chunkZ) {
+        try {
+            Collection<Claim> claims = GriefPrevention.instance.dataStore.getClaims(chunkX, chunkZ);
+            int[] boxes = new int[claims.size() * 4];
+            int n = 0;
+            for (Claim claim : claims) {
+                Location lesser = claim.getLesserBoundaryCorner();
+                Location greater = claim.getGreaterBoundaryCorner();
+                if (lesser == null || greater == null || !world.equals(lesser.getWorld())) continue;
+                boxes[n++] = lesser.getBlockX();
+                boxes[n++] = lesser.getBlockZ();
+                boxes[n++] = greater.getBlockX();
+                boxes[n++] = greater.getBlockZ();
+            }
+            return n == boxes.length ? boxes : Arrays.copyOf(boxes, n);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean collectClaims(ClaimIndex.Collector collector) {
+        // top-level claims only; subdivisions lie inside their parent
+        for (Claim claim : GriefPrevention.instance.dataStore.getClaims()) {
+            Location lesser = claim.getLesserBoundaryCorner();
+            Location greater = claim.getGreaterBoundaryCorner();
+            if (lesser == null || greater == null || lesser.getWorld() == null) continue;
+            collector.add(lesser.getWorld().getName(), lesser.getBlockX(), lesser.getBlockZ(), greater.getBlockX(), greater.getBlockZ());
+        }
+        return true;
+    }
 }
\ No newline at end of file
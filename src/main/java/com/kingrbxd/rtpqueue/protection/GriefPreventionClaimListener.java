@@ -0,0 +1,60 @@
+package com.kingrbxd.rtpqueue.protection;
+
+import com.kingrbxd.rtpqueue.handlers.ClaimProtectionHandler;
+import me.ryanhamshire.GriefPrevention.Claim;
+import me.ryanhamshire.GriefPrevention.events.ClaimCreatedEvent;
+import me.ryanhamshire.GriefPrevention.events.ClaimDeletedEvent;
+import me.ryanhamshire.GriefPrevention.events.ClaimResizeEvent;
+import org.bukkit.Location;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Drops cached chunk verdicts and updates the claim index when GriefPrevention claims are created,
+ * deleted or resized
+ */
+public class GriefPreventionClaimListener implements Listener {
+    private final ClaimProtectionHandler handler;
+
+    public GriefPreventionClaimListener(ClaimProtectionHandler handler) {
+        this.handler = handler;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onClaimCreated(ClaimCreatedEvent event) {
+        update(event.getClaim(), true);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onClaimDeleted(ClaimDeletedEvent event) {
+        update(event.getClaim(), false);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onClaimResize(ClaimResizeEvent event) {
+        update(event.getFrom(), false);
+        update(event.getTo(), true);
+    }
+
+    private void update(Claim claim, boolean created) {
+        if (claim == null) return;
+
+        Location lesser = claim.getLesserBoundaryCorner();
+        Location greater = claim.getGreaterBoundaryCorner();
+        if (lesser == null || greater == null || lesser.getWorld() == null) {
+            handler.invalidateClaims(null);
+            return;
+        }
+
+        String worldName = lesser.getWorld().getName();
+        if (claim.parent != null) {
+            // subdivisions lie inside their parent, which alone is in the claim index
+            handler.invalidateClaims(worldName, lesser.getBlockX(), lesser.getBlockZ(), greater.getBlockX(), greater.getBlockZ());
+        } else if (created) {
+            handler.claimCreated(worldName, lesser.getBlockX(), lesser.getBlockZ(), greater.getBlockX(), greater.getBlockZ());
+        } else {
+            handler.claimDeleted(worldName, lesser.getBlockX(), lesser.getBlockZ(), greater.getBlockX(), greater.getBlockZ());
+        }
+    }
+}
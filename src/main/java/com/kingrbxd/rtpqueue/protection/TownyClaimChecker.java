@@ -1,11 +1,18 @@
 package com.kingrbxd.rtpqueue.protection;
 
 import com.palmergames.bukkit.towny.TownyAPI;
+import com.palmergames.bukkit.towny.TownySettings;
 import com.palmergames.bukkit.towny.object.TownBlock;
+import com.palmergames.bukkit.towny.object.WorldCoord;
 import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Arrays;
 
 /**
  * Complete Towny claim checker
+ *
+ * Region and batch checks look up each town block once, whatever the town block size.
  */
 public class TownyClaimChecker implements ClaimChecker {
 
@@ -24,4 +31,93 @@ public class TownyClaimChecker implements ClaimChecker {
             return false;
         }
     }
+
+    /**
+     * With the default town block size of 16 a town block is exactly one chunk; other sizes check the
+     * town blocks under the chunk
+     */
+    @Override
+    public ClaimVerdict getChunkVerdict(World world, int chunkX, int chunkZ) {
+        try {
+            if (TownySettings.getTownBlockSize() != 16) {
+                return getRegionVerdict(world, chunkX << 4, chunkZ << 4, (chunkX << 4) + 15, (chunkZ << 4) + 15);
+            }
+            TownBlock townBlock = TownyAPI.getInstance().getTownBlock(new WorldCoord(world.getName(), chunkX, chunkZ));
+            return townBlock != null ? ClaimVerdict.CLAIMED : ClaimVerdict.UNCLAIMED;
+        } catch (Exception e) {
+            return ClaimVerdict.PARTIAL;
+        }
+    }
+
+    @Override
+    public ClaimVerdict getRegionVerdict(World world, int minX, int minZ, int maxX, int maxZ) {
+        try {
+            int size = TownySettings.getTownBlockSize();
+            int minBlockX = Math.floorDiv(Math.min(minX, maxX), size);
+            int maxBlockX = Math.floorDiv(Math.max(minX, maxX), size);
+            int minBlockZ = Math.floorDiv(Math.min(minZ, maxZ), size);
+            int maxBlockZ = Math.floorDiv(Math.max(minZ, maxZ), size);
+            if (((long) maxBlockX - minBlockX + 1) * ((long) maxBlockZ - minBlockZ + 1) > MAX_REGION_CHUNKS) {
+                return ClaimVerdict.PARTIAL;
+            }
+
+            TownyAPI townyAPI = TownyAPI.getInstance();
+            boolean allClaimed = true;
+            boolean allFree = true;
+            for (int blockX = minBlockX; blockX <= maxBlockX; blockX++) {
+                for (int blockZ = minBlockZ; blockZ <= maxBlockZ; blockZ++) {
+                    boolean claimed = townyAPI.getTownBlock(new WorldCoord(world.getName(), blockX, blockZ)) != null;
+                    if (claimed) allFree = false;
+                    else allClaimed = false;
+                    if (!allClaimed && !allFree) return ClaimVerdict.PARTIAL;
+                }
+            }
+            return allFree ? ClaimVerdict.UNCLAIMED : ClaimVerdict.CLAIMED;
+        } catch (Exception e) {
+            return ClaimVerdict.PARTIAL;
+        }
+    }
+
+    /**
+     * One town block lookup per town block the columns fall in. If a lookup fails every column counts
+     * as claimed.
+     */
+    @Override
+    public boolean[] areClaimed(World world, int[] columns) {
+        try {
+            int size = TownySettings.getTownBlockSize();
+            TownyAPI townyAPI = TownyAPI.getInstance();
+            boolean[] claimed = new boolean[columns.length / 2];
+            long lastBlock = Long.MIN_VALUE;
+            boolean blockClaimed = false;
+
+            for (int i = 0; i < claimed.length; i++) {
+                int blockX = Math.floorDiv(columns[i * 2], size);
+                int blockZ = Math.floorDiv(columns[i * 2 + 1], size);
+                long block = (long) blockX << 32 | (blockZ & 0xFFFFFFFFL);
+                if (block != lastBlock) {
+                    lastBlock = block;
+                    blockClaimed = townyAPI.getTownBlock(new WorldCoord(world.getName(), blockX, blockZ)) != null;
+                }
+                claimed[i] = blockClaimed;
+            }
+            return claimed;
+        } catch (Exception e) {
+            boolean[] claimed = new boolean[columns.length / 2];
+            Arrays.fill(claimed, true);
+            return claimed;
+        }
+    }
+
+    @Override
+    public boolean collectClaims(ClaimIndex.Collector collector) {
+        int size = TownySettings.getTownBlockSize();
+        for (TownBlock townBlock : TownyAPI.getInstance().getTownBlocks()) {
+            WorldCoord coord = townBlock.getWorldCoord();
+            int minX = coord.getX() * size;
+            int minZ = coord.getZ() * size;
+            collector.add(coord.getWorldName(), minX, minZ, minX + size - 1, minZ + size - 1);
+        }
+        return true;
+    }
 }
\ No newline at end of file
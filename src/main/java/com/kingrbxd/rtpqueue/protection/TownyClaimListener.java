@@ -0,0 +1,54 @@
+package com.kingrbxd.rtpqueue.protection;
+
+import com.kingrbxd.rtpqueue.handlers.ClaimProtectionHandler;
+import com.palmergames.bukkit.towny.TownySettings;
+import com.palmergames.bukkit.towny.event.DeleteTownEvent;
+import com.palmergames.bukkit.towny.event.TownClaimEvent;
+import com.palmergames.bukkit.towny.event.town.TownUnclaimEvent;
+import com.palmergames.bukkit.towny.object.WorldCoord;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Drops cached chunk verdicts and updates the claim index when Towny town blocks are claimed or unclaimed
+ */
+public class TownyClaimListener implements Listener {
+    private final ClaimProtectionHandler handler;
+
+    public TownyClaimListener(ClaimProtectionHandler handler) {
+        this.handler = handler;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onTownClaim(TownClaimEvent event) {
+        if (event.getTownBlock() != null) {
+            update(event.getTownBlock().getWorldCoord(), true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onTownUnclaim(TownUnclaimEvent event) {
+        update(event.getWorldCoord(), false);
+    }
+
+    // a deleted town releases all of its blocks at once and the event no longer names them; their
+    // boxes stay in the claim index until the next reload
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDeleteTown(DeleteTownEvent event) {
+        handler.invalidateClaims(null);
+    }
+
+    private void update(WorldCoord coord, boolean claimed) {
+        if (coord == null) return;
+
+        int size = TownySettings.getTownBlockSize();
+        int minX = coord.getX() * size;
+        int minZ = coord.getZ() * size;
+        if (claimed) {
+            handler.claimCreated(coord.getWorldName(), minX, minZ, minX + size - 1, minZ + size - 1);
+        } else {
+            handler.claimDeleted(coord.getWorldName(), minX, minZ, minX + size - 1, minZ + size - 1);
+        }
+    }
+}
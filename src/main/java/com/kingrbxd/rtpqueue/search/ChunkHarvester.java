@@ -0,0 +1,228 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import com.kingrbxd.rtpqueue.protection.ClaimIndex;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.HeightMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ChunkHarvester
+ *
+ * Collects extra safe spots from chunks that are loaded anyway: every chunk a search scans, the
+ * chunks around a teleport destination and the chunks of a pregeneration job. A chunk is scanned on
+ * the teleport.location-pool.harvest grid of columns from one snapshot; spots that also pass the
+ * blocked biomes, destination spacing and claim checks go to the location pool.
+ */
+public class ChunkHarvester {
+    private final AdvancedRTPQueue plugin;
+    private final LocationFinder finder;
+
+    ChunkHarvester(AdvancedRTPQueue plugin, LocationFinder finder) {
+        this.plugin = plugin;
+        this.finder = finder;
+    }
+
+    /**
+     * Harvest the safe spots of a loaded chunk, at most max-per-chunk of them and spaced apart. Used by
+     * the pregeneration job and after teleports; callers offer the spots to the pool.
+     *
+     * Completes on the main thread. Must be called on the main thread.
+     */
+    public CompletableFuture<List<Location>> harvestChunk(Chunk chunk, WorldManager.WorldSettings worldSettings) {
+        CompletableFuture<List<Location>> result = new CompletableFuture<>();
+        World world = chunk.getWorld();
+        int[] columns = sampleColumns(world, chunk.getX(), chunk.getZ(), worldSettings, Integer.MIN_VALUE, Integer.MIN_VALUE);
+        finder.getIslandMasks().mark(worldSettings, world, chunk.getX(), chunk.getZ(), Integer.MIN_VALUE, Integer.MIN_VALUE, 0, columns);
+        if (columns.length == 0) {
+            result.complete(Collections.emptyList());
+            return result;
+        }
+
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(true, false, false);
+        SafetyScanner scanner = finder.createScanner(world, worldSettings);
+        ClaimIndex claimIndex = finder.getClaimIndex();
+        int baseX = chunk.getX() << 4;
+        int baseZ = chunk.getZ() << 4;
+
+        boolean queued = finder.executeSearchTask(() -> {
+            List<int[]> found;
+            try {
+                found = scanner.findSafeColumns(snapshot, columns);
+            } catch (Exception e) {
+                found = Collections.emptyList();
+            }
+            LocationFinder.removeClaimed(claimIndex, world.getName(), baseX, baseZ, found);
+
+            List<int[]> spots = found;
+            finder.runOnMainThread(() -> result.complete(
+                    acceptSpots(world, worldSettings, baseX, baseZ, spots, new ArrayList<>(), getLimit())));
+        });
+        if (!queued) {
+            result.complete(Collections.emptyList());
+        }
+        return result;
+    }
+
+    /**
+     * After a teleport: harvest the chunks the arriving players keep loaded anyway. Looks at the four
+     * chunks just outside the destination-spacing radius (or the direct neighbours when spacing is off)
+     * and adds their safe spots to the pool. Must be called on the main thread.
+     */
+    public void harvestAround(Location destination, WorldManager.WorldSettings worldSettings) {
+        LocationPool pool = plugin.getLocationPool();
+        if (pool == null || worldSettings == null || !destination.isWorldLoaded() || !isEnabled()
+                || !plugin.getConfigManager().getBoolean("teleport.safe-teleport", true)) {
+            return;
+        }
+
+        DestinationSpacing spacing = finder.getDestinationSpacing();
+        World world = destination.getWorld();
+        int ring = spacing.isEnabled() ? spacing.getMinSeparation() / 16 + 1 : 1;
+        int chunkX = destination.getBlockX() >> 4;
+        int chunkZ = destination.getBlockZ() >> 4;
+        int[][] offsets = {{ring, 0}, {-ring, 0}, {0, ring}, {0, -ring}};
+
+        for (int[] offset : offsets) {
+            if (!pool.hasRoom(world.getName())) return;
+            int x = chunkX + offset[0];
+            int z = chunkZ + offset[1];
+            if (!world.isChunkLoaded(x, z)) continue;
+
+            harvestChunk(world.getChunkAt(x, z), worldSettings).thenAccept(spots -> {
+                for (Location spot : spots) {
+                    pool.offer(spot);
+                }
+            });
+        }
+    }
+
+    /**
+     * Heightmaps of the harvest grid's columns in a loaded chunk, as {localX, localZ, surfaceY, topY}
+     * per column for SafetyScanner.findSafeColumns. Columns outside the world's bounds and the column at
+     * skipX/skipZ (already checked as a candidate) are left out. Main thread only.
+     */
+    int[] sampleColumns(World world, int chunkX, int chunkZ, WorldManager.WorldSettings worldSettings, int skipX, int skipZ) {
+        int grid = Math.min(14, plugin.getConfigManager().getInt("teleport.location-pool.harvest.columns", 4));
+        if (!isEnabled() || grid <= 0 || getLimit() == 0) return new int[0];
+
+        int minX = Math.min(worldSettings.getMinX(), worldSettings.getMaxX());
+        int maxX = Math.max(worldSettings.getMinX(), worldSettings.getMaxX());
+        int minZ = Math.min(worldSettings.getMinZ(), worldSettings.getMaxZ());
+        int maxZ = Math.max(worldSettings.getMinZ(), worldSettings.getMaxZ());
+
+        int[] columns = new int[grid * grid * 4];
+        int n = 0;
+        for (int i = 0; i < grid; i++) {
+            // spread over 1..14 so the 3x3 neighbourhood stays inside the snapshot
+            int localX = grid == 1 ? 8 : 1 + i * 13 / (grid - 1);
+            int x = (chunkX << 4) + localX;
+            if (x < minX || x > maxX) continue;
+            for (int j = 0; j < grid; j++) {
+                int localZ = grid == 1 ? 8 : 1 + j * 13 / (grid - 1);
+                int z = (chunkZ << 4) + localZ;
+                if (z < minZ || z > maxZ || (x == skipX && z == skipZ)) continue;
+
+                columns[n++] = localX;
+                columns[n++] = localZ;
+                columns[n++] = world.getHighestBlockYAt(x, z, HeightMap.MOTION_BLOCKING_NO_LEAVES);
+                columns[n++] = world.getHighestBlockYAt(x, z, HeightMap.WORLD_SURFACE);
+            }
+        }
+        return Arrays.copyOf(columns, n);
+    }
+
+    /**
+     * The spots a search scanned next to its candidate column: returns the location to answer the
+     * request with (the candidate, or a harvested spot if the candidate failed) and offers the
+     * remaining spots to the pool. Returns null if neither is usable. Main thread only.
+     */
+    Location takeSpots(World world, WorldManager.WorldSettings worldSettings, int baseX, int baseZ,
+                       List<int[]> spots, Location candidate) {
+        LocationPool pool = plugin.getLocationPool();
+        boolean poolHasRoom = pool != null && pool.hasRoom(world.getName());
+        if (spots.isEmpty() || (candidate != null && !poolHasRoom)) {
+            return candidate;
+        }
+
+        List<Location> taken = new ArrayList<>();
+        if (candidate != null) taken.add(candidate);
+        int limit = (poolHasRoom ? getLimit() : 0) + (candidate == null ? 1 : 0);
+        List<Location> accepted = acceptSpots(world, worldSettings, baseX, baseZ, spots, taken, limit);
+
+        Location found = candidate;
+        if (found == null && !accepted.isEmpty()) {
+            found = accepted.remove(0);
+        }
+        if (poolHasRoom) {
+            for (Location spot : accepted) {
+                pool.offer(spot);
+            }
+        }
+        return found;
+    }
+
+    private boolean isEnabled() {
+        return plugin.getConfigManager().getBoolean("teleport.location-pool.harvest.enabled", true);
+    }
+
+    private int getLimit() {
+        return Math.max(0, plugin.getConfigManager().getInt("teleport.location-pool.harvest.max-per-chunk", 2));
+    }
+
+    /**
+     * Turn scanned spots into locations, keeping at most limit of them: skips blocked biomes, spots near
+     * recent destinations or near a spot in taken, and claimed spots. Accepted locations are added to
+     * taken. Spots are kept destination-spacing apart (harvest.min-spacing when spacing is off).
+     * Main thread only; the batch claim check is charged to the tick budget.
+     */
+    private List<Location> acceptSpots(World world, WorldManager.WorldSettings worldSettings, int baseX, int baseZ,
+                                       List<int[]> spots, List<Location> taken, int limit) {
+        DestinationSpacing spacing = finder.getDestinationSpacing();
+        List<Location> accepted = new ArrayList<>();
+        int separation = spacing.isEnabled()
+                ? spacing.getMinSeparation()
+                : Math.max(1, plugin.getConfigManager().getInt("teleport.location-pool.harvest.min-spacing", 32));
+        long separationSq = (long) separation * separation;
+
+        // one batch claim check for the whole chunk's spots
+        long start = System.nanoTime();
+        boolean[] claimed = finder.areClaimed(world, baseX, baseZ, spots);
+        long elapsed = System.nanoTime() - start;
+        finder.getTickBudget().charge(elapsed);
+        finder.getStats().recordLatency(world.getName(), SearchStats.Stage.CLAIM_CHECK, elapsed);
+
+        for (int i = 0; i < spots.size() && accepted.size() < limit; i++) {
+            if (claimed[i]) continue;
+
+            int[] spot = spots.get(i);
+            int x = baseX + spot[0];
+            int z = baseZ + spot[2];
+            if (spacing.isTooClose(world.getName(), x, z) || isNear(taken, x, z, separationSq)) continue;
+            if (!worldSettings.getBlockedBiomes().isEmpty() && worldSettings.isBiomeBlocked(world.getBiome(x, spot[1], z))) continue;
+
+            Location location = new Location(world, x + 0.5, spot[1], z + 0.5);
+            accepted.add(location);
+            taken.add(location);
+        }
+        return accepted;
+    }
+
+    private static boolean isNear(List<Location> taken, int x, int z, long separationSq) {
+        for (Location other : taken) {
+            long dx = other.getBlockX() - x;
+            long dz = other.getBlockZ() - z;
+            if (dx * dx + dz * dz < separationSq) return true;
+        }
+        return false;
+    }
+}
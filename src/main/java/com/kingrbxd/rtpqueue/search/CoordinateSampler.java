@@ -0,0 +1,30 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Source of candidate coordinates for the location search.
+ *
+ * Samplers produce points in the unit square; LocationFinder maps them onto a world's
+ * min-x..max-x / min-z..max-z box. A sampler's position in its sequence (getIndex) is persisted
+ * per world by SamplerStore so coverage continues across restarts.
+ */
+public interface CoordinateSampler {
+
+    /**
+     * Write the next point to out[0] (u) and out[1] (v), both in [0, 1).
+     *
+     * @param random source for any jitter the sampler applies
+     */
+    void next(RandomGenerator random, double[] out);
+
+    /**
+     * @return the config name of this sampler's mode
+     */
+    String getMode();
+
+    /**
+     * @return how many points this sampler has produced
+     */
+    long getIndex();
+}
@@ -0,0 +1,164 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DestinationSpacing
+ *
+ * Remembers recently issued teleport destinations per world so new destinations keep a minimum
+ * separation from them (teleport.destination-spacing). That keeps groups, and the chunks and entities
+ * they keep ticking, spread over the map instead of piling up in one region.
+ *
+ * Destinations live in a spatial hash with cells as wide as the minimum separation, so a check only
+ * looks at the 3x3 cells around a column. Each cell keeps a short copy-on-write array of its
+ * destinations (at most MAX_PER_CELL, newest last); expired ones are pruned whenever the cell is
+ * written.
+ *
+ * Worlds are keyed by bukkit world name. Safe to use from worker threads.
+ */
+public class DestinationSpacing {
+    private static final int PURGE_EVERY = 64;
+    private static final int MAX_PER_CELL = 8;
+    private static final Destination[] EMPTY = new Destination[0];
+
+    private final Map<String, Map<Long, Destination[]>> worlds = new ConcurrentHashMap<>();
+    private final AtomicInteger recordsSincePurge = new AtomicInteger();
+    private volatile boolean enabled = true;
+    private volatile int minSeparation = 128;
+    private volatile long expiryMillis = 900_000L;
+
+    /**
+     * Apply the settings. Recorded destinations survive a reload unless spacing was turned off or
+     * the separation (the cell size) changed; a changed expiry only applies to new destinations.
+     */
+    public void configure(boolean enabled, int minSeparation, long expiryMillis) {
+        boolean wasEnabled = this.enabled;
+        int oldSeparation = this.minSeparation;
+
+        this.enabled = enabled && minSeparation > 0;
+        this.minSeparation = Math.max(1, minSeparation);
+        this.expiryMillis = Math.max(1000L, expiryMillis);
+        if (!this.enabled || !wasEnabled || this.minSeparation != oldSeparation) {
+            worlds.clear();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinSeparation() {
+        return minSeparation;
+    }
+
+    public void record(String bukkitWorldName, int x, int z) {
+        if (!enabled) return;
+
+        int separation = minSeparation;
+        long now = System.currentTimeMillis();
+        Destination destination = new Destination(x, z, now + expiryMillis);
+        Map<Long, Destination[]> cells = worlds.computeIfAbsent(bukkitWorldName, k -> new ConcurrentHashMap<>());
+        cells.compute(cellKey(Math.floorDiv(x, separation), Math.floorDiv(z, separation)),
+                (key, current) -> append(current, destination, now));
+
+        if (recordsSincePurge.incrementAndGet() >= PURGE_EVERY) {
+            recordsSincePurge.set(0);
+            purgeExpired();
+        }
+    }
+
+    /**
+     * Whether x/z is closer than the minimum separation to a destination issued within the expiry time.
+     */
+    public boolean isTooClose(String bukkitWorldName, int x, int z) {
+        if (!enabled) return false;
+
+        Map<Long, Destination[]> cells = worlds.get(bukkitWorldName);
+        if (cells == null || cells.isEmpty()) return false;
+
+        int separation = minSeparation;
+        long separationSq = (long) separation * separation;
+        long now = System.currentTimeMillis();
+        int cellX = Math.floorDiv(x, separation);
+        int cellZ = Math.floorDiv(z, separation);
+
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                Destination[] destinations = cells.get(cellKey(cellX + dx, cellZ + dz));
+                if (destinations == null) continue;
+
+                for (Destination destination : destinations) {
+                    if (destination.expiresAt < now) continue;
+
+                    long ox = (long) destination.x - x;
+                    long oz = (long) destination.z - z;
+                    if (ox * ox + oz * oz < separationSq) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        for (Map<Long, Destination[]> cells : worlds.values()) {
+            for (Long key : cells.keySet()) {
+                cells.computeIfPresent(key, (k, current) -> {
+                    Destination[] live = prune(current, now);
+                    return live.length > 0 ? live : null;
+                });
+            }
+        }
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    /**
+     * current without expired entries plus destination, dropping the oldest beyond MAX_PER_CELL.
+     */
+    private static Destination[] append(Destination[] current, Destination destination, long now) {
+        Destination[] live = current != null ? prune(current, now) : EMPTY;
+        int keep = Math.min(live.length, MAX_PER_CELL - 1);
+        Destination[] result = new Destination[keep + 1];
+        System.arraycopy(live, live.length - keep, result, 0, keep);
+        result[keep] = destination;
+        return result;
+    }
+
+    private static Destination[] prune(Destination[] current, long now) {
+        int live = 0;
+        for (Destination destination : current) {
+            if (destination.expiresAt >= now) live++;
+        }
+        if (live == current.length) return current;
+
+        Destination[] result = new Destination[live];
+        int i = 0;
+        for (Destination destination : current) {
+            if (destination.expiresAt >= now) result[i++] = destination;
+        }
+        return result;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static final class Destination {
+        private final int x;
+        private final int z;
+        private final long expiresAt;
+
+        private Destination(int x, int z, long expiresAt) {
+            this.x = x;
+            this.z = z;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Halton (2, 3) low-discrepancy sequence.
+ *
+ * Every prefix of the sequence covers the unit square evenly, so successive searches spread over the
+ * whole box without repeating areas. A fixed offset per world (Cranley-Patterson rotation), drawn
+ * from the world's seed, keeps different worlds and servers from producing the same points. The
+ * sequence itself is deterministic, so no jitter is drawn from the random source: the points depend
+ * only on the start index and the offsets.
+ */
+public class HaltonSampler implements CoordinateSampler {
+    public static final String MODE = "halton";
+
+    private final double offsetU;
+    private final double offsetV;
+    private long index;
+
+    public HaltonSampler(long index, double offsetU, double offsetV) {
+        this.index = Math.max(0, index);
+        this.offsetU = offsetU;
+        this.offsetV = offsetV;
+    }
+
+    @Override
+    public void next(RandomGenerator random, double[] out) {
+        index++; // index 0 is the origin in both bases
+        out[0] = wrap(radicalInverse(index, 2) + offsetU);
+        out[1] = wrap(radicalInverse(index, 3) + offsetV);
+    }
+
+    @Override
+    public String getMode() {
+        return MODE;
+    }
+
+    @Override
+    public long getIndex() {
+        return index;
+    }
+
+    public double getOffsetU() {
+        return offsetU;
+    }
+
+    public double getOffsetV() {
+        return offsetV;
+    }
+
+    private static double radicalInverse(long n, int base) {
+        double result = 0;
+        double fraction = 1.0 / base;
+        while (n > 0) {
+            result += (n % base) * fraction;
+            n /= base;
+            fraction /= base;
+        }
+        return result;
+    }
+
+    private static double wrap(double value) {
+        return value >= 1.0 ? value - 1.0 : value;
+    }
+}
@@ -0,0 +1,196 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.io.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * IslandMask
+ *
+ * Coarse land/void map of one world's search bounds, for worlds searched with SearchStrategy.ISLANDS
+ * (the End, where most of the box is void).
+ *
+ * - The bounds are split into square cells like RejectionMemory (a power of two, at least one chunk,
+ *   grown until the grid fits in MAX_CELLS); each cell is UNKNOWN, LAND or VOID
+ * - Cells are classified from the WORLD_SURFACE heightmap of every column the search or the harvester
+ *   has looked at, and from the generator's surface prediction for chunks that do not exist yet.
+ *   One column with ground makes a cell LAND. A cell only turns VOID after VOID_SAMPLES empty columns
+ *   and no land, since a single empty column says little about a cell that may hold a small island
+ * - LAND cells are also kept in a dense list, so a random land cell is picked in O(1)
+ *
+ * The mask is saved per world (islands/<world>.dat) and reused as long as the bounds are unchanged.
+ * Only LAND is saved: void evidence is rebuilt after every restart, so a cell wrongly written off (or
+ * built on since) gets sampled again.
+ *
+ * Main thread only.
+ */
+public class IslandMask {
+    public static final byte UNKNOWN = 0;
+    public static final byte LAND = 1;
+    public static final byte VOID = 2;
+
+    private static final int MAX_CELLS = 1 << 16;
+    private static final int VOID_SAMPLES = 4; // empty columns before a cell without land counts as VOID
+    private static final int MAGIC = 0x52545049; // "RTPI"
+    private static final byte VERSION = 1;
+
+    private final int minX, maxX, minZ, maxZ;
+    private final int cellShift;
+    private final int cellsX, cellsZ;
+    private final byte[] cells;
+    private final byte[] voidSamples; // empty columns seen per UNKNOWN cell
+    private final int[] landCells; // dense list of LAND cell indexes; LAND is never cleared
+    private int landCount = 0;
+    private int unknownCount;
+    private boolean dirty = false;
+
+    public IslandMask(int minX, int maxX, int minZ, int maxZ) {
+        this.minX = Math.min(minX, maxX);
+        this.maxX = Math.max(minX, maxX);
+        this.minZ = Math.min(minZ, maxZ);
+        this.maxZ = Math.max(minZ, maxZ);
+
+        int shift = 4;
+        long spanX = (long) this.maxX - this.minX;
+        long spanZ = (long) this.maxZ - this.minZ;
+        while (cellCount(spanX, shift) * cellCount(spanZ, shift) > MAX_CELLS) shift++;
+
+        this.cellShift = shift;
+        this.cellsX = (int) cellCount(spanX, shift);
+        this.cellsZ = (int) cellCount(spanZ, shift);
+        this.cells = new byte[cellsX * cellsZ];
+        this.voidSamples = new byte[cells.length];
+        this.landCells = new int[cells.length];
+        this.unknownCount = cells.length;
+    }
+
+    /**
+     * Record what a column showed: land if it has any block, void otherwise. Only LAND changes mark
+     * the mask for saving.
+     */
+    public void mark(int x, int z, boolean land) {
+        int index = indexOf(x, z);
+        if (index < 0) return;
+
+        byte current = cells[index];
+        if (land && current != LAND) {
+            if (current == UNKNOWN) unknownCount--;
+            cells[index] = LAND;
+            landCells[landCount++] = index;
+            dirty = true;
+        } else if (!land && current == UNKNOWN && ++voidSamples[index] >= VOID_SAMPLES) {
+            unknownCount--;
+            cells[index] = VOID;
+        }
+    }
+
+    public byte get(int x, int z) {
+        int index = indexOf(x, z);
+        return index >= 0 ? cells[index] : UNKNOWN;
+    }
+
+    public boolean isVoid(int x, int z) {
+        return get(x, z) == VOID;
+    }
+
+    /**
+     * Write a random column of a random LAND cell to out[0] (x) and out[1] (z).
+     * Returns false if no cell is known to hold land.
+     */
+    public boolean pickLand(RandomGenerator random, int[] out) {
+        if (landCount == 0) return false;
+
+        int index = landCells[random.nextInt(landCount)];
+        int size = 1 << cellShift;
+        long x = minX + ((long) (index % cellsX) << cellShift) + random.nextInt(size);
+        long z = minZ + ((long) (index / cellsX) << cellShift) + random.nextInt(size);
+        out[0] = (int) Math.min(maxX, x);
+        out[1] = (int) Math.min(maxZ, z);
+        return true;
+    }
+
+    public int getLandCells() {
+        return landCount;
+    }
+
+    public int getUnknownCells() {
+        return unknownCount;
+    }
+
+    public int getCellSize() {
+        return 1 << cellShift;
+    }
+
+    /**
+     * Whether this mask was built for the given bounds.
+     */
+    public boolean covers(int minX, int maxX, int minZ, int maxZ) {
+        return this.minX == Math.min(minX, maxX) && this.maxX == Math.max(minX, maxX) &&
+                this.minZ == Math.min(minZ, maxZ) && this.maxZ == Math.max(minZ, maxZ);
+    }
+
+    /**
+     * Write the mask if it changed since it was loaded or last saved.
+     */
+    public void save(File file) throws IOException {
+        if (!dirty) return;
+
+        File folder = file.getParentFile();
+        if (folder != null && !folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getPath());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(minX);
+            out.writeInt(maxX);
+            out.writeInt(minZ);
+            out.writeInt(maxZ);
+            out.writeByte(cellShift);
+            byte[] land = new byte[cells.length];
+            for (int i = 0; i < landCount; i++) {
+                land[landCells[i]] = LAND;
+            }
+            out.write(land);
+        }
+        dirty = false;
+    }
+
+    /**
+     * Read a saved mask for the given bounds. Returns an empty mask if there is no file, it is
+     * unreadable or it was saved for other bounds. VOID cells in older files are ignored.
+     */
+    public static IslandMask load(File file, int minX, int maxX, int minZ, int maxZ) throws IOException {
+        IslandMask mask = new IslandMask(minX, maxX, minZ, maxZ);
+        if (!file.isFile()) return mask;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) return mask;
+            if (!mask.covers(in.readInt(), in.readInt(), in.readInt(), in.readInt()) || in.readByte() != mask.cellShift) {
+                return mask;
+            }
+
+            byte[] saved = new byte[mask.cells.length];
+            in.readFully(saved);
+            for (int index = 0; index < saved.length; index++) {
+                if (saved[index] == LAND) {
+                    long x = mask.minX + ((long) (index % mask.cellsX) << mask.cellShift);
+                    long z = mask.minZ + ((long) (index / mask.cellsX) << mask.cellShift);
+                    mask.mark((int) x, (int) z, true);
+                }
+            }
+        }
+        mask.dirty = false;
+        return mask;
+    }
+
+    private int indexOf(int x, int z) {
+        if (x < minX || x > maxX || z < minZ || z > maxZ) return -1;
+        int cx = (int) (((long) x - minX) >> cellShift);
+        int cz = (int) (((long) z - minZ) >> cellShift);
+        return cz * cellsX + cx;
+    }
+
+    private static long cellCount(long span, int shift) {
+        return (span >> shift) + 1;
+    }
+}
@@ -0,0 +1,96 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import org.bukkit.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * IslandMaskStore
+ *
+ * Holds the IslandMask of every world searched with the islands strategy and persists the masks to
+ * islands/<world>.dat (teleport.island-mask.persist). A mask is loaded on first use and rebuilt when
+ * the world's bounds change; masks are saved and dropped on reload and shutdown.
+ *
+ * Masks are keyed by bukkit world name and are only used from the main thread.
+ */
+public class IslandMaskStore {
+    private final AdvancedRTPQueue plugin;
+    private final Map<String, IslandMask> masks = new HashMap<>();
+
+    public IslandMaskStore(AdvancedRTPQueue plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * The island mask for a world, or null if it is not searched with the islands strategy.
+     */
+    public IslandMask get(WorldManager.WorldSettings worldSettings) {
+        if (worldSettings.getStrategy() != SearchStrategy.ISLANDS) return null;
+
+        IslandMask mask = masks.get(worldSettings.getBukkitWorldName());
+        if (mask != null && mask.covers(worldSettings.getMinX(), worldSettings.getMaxX(),
+                worldSettings.getMinZ(), worldSettings.getMaxZ())) {
+            return mask;
+        }
+
+        mask = new IslandMask(worldSettings.getMinX(), worldSettings.getMaxX(), worldSettings.getMinZ(), worldSettings.getMaxZ());
+        if (isPersistEnabled()) {
+            try {
+                mask = IslandMask.load(getFile(worldSettings.getBukkitWorldName()),
+                        worldSettings.getMinX(), worldSettings.getMaxX(), worldSettings.getMinZ(), worldSettings.getMaxZ());
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to read island mask of " + worldSettings.getBukkitWorldName() + ": " + e.getMessage());
+            }
+        }
+        masks.put(worldSettings.getBukkitWorldName(), mask);
+        return mask;
+    }
+
+    /**
+     * Record the columns of a chunk that were looked at in the world's island mask, if it has one:
+     * the candidate column x/z (topY; skipped when x is Integer.MIN_VALUE) and the harvest columns
+     * ({localX, localZ, surfaceY, topY} each).
+     */
+    public void mark(WorldManager.WorldSettings worldSettings, World world, int chunkX, int chunkZ,
+                     int x, int z, int topY, int[] columns) {
+        IslandMask mask = get(worldSettings);
+        if (mask == null) return;
+
+        int minHeight = world.getMinHeight();
+        if (x != Integer.MIN_VALUE) {
+            mask.mark(x, z, topY >= minHeight);
+        }
+        for (int i = 0; i + 3 < columns.length; i += 4) {
+            mask.mark((chunkX << 4) + columns[i], (chunkZ << 4) + columns[i + 1], columns[i + 3] >= minHeight);
+        }
+    }
+
+    /**
+     * Write every mask to disk and drop them; they are reloaded on next use. Called on reload and shutdown.
+     */
+    public void save() {
+        if (isPersistEnabled()) {
+            for (Map.Entry<String, IslandMask> entry : masks.entrySet()) {
+                try {
+                    entry.getValue().save(getFile(entry.getKey()));
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Failed to save island mask of " + entry.getKey() + ": " + e.getMessage());
+                }
+            }
+        }
+        masks.clear();
+    }
+
+    private boolean isPersistEnabled() {
+        return plugin.getConfigManager().getBoolean("teleport.island-mask.persist", true);
+    }
+
+    private File getFile(String bukkitWorldName) {
+        return new File(new File(plugin.getDataFolder(), "islands"), bukkitWorldName.replaceAll("[^A-Za-z0-9_.-]", "_") + ".dat");
+    }
+}
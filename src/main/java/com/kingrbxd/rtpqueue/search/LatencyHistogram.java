@@ -0,0 +1,68 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram
+ *
+ * Lock-free latency histogram with power-of-two buckets in microseconds: bucket 0 holds samples
+ * below 1us, bucket i holds [2^(i-1), 2^i) us, the last bucket everything above. Recording is one
+ * numberOfLeadingZeros and two LongAdder increments, so it can be called from any thread.
+ *
+ * Percentiles are reported as the upper edge of the bucket they fall in, i.e. accurate to a factor of two.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 32; // last bucket starts at 2^30 us, about 18 minutes
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalMicros = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = micros == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets[bucket].increment();
+        totalMicros.add(micros);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double getMeanMillis() {
+        long count = getCount();
+        return count > 0 ? totalMicros.sum() / 1000.0 / count : 0.0;
+    }
+
+    /**
+     * Upper bound in milliseconds of the bucket holding the given quantile (0-1), 0 if empty.
+     */
+    public double getPercentileMillis(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) return 0.0;
+
+        long rank = (long) Math.ceil(Math.max(0.0, Math.min(1.0, quantile)) * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return (1L << i) / 1000.0;
+            }
+        }
+        return (1L << (BUCKETS - 1)) / 1000.0;
+    }
+}
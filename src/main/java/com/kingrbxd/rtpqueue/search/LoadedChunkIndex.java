@@ -0,0 +1,132 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * LoadedChunkIndex
+ *
+ * The chunks currently loaded inside the RTP bounds of every world with loaded-chunks-only enabled,
+ * kept up to date from ChunkLoadEvent/ChunkUnloadEvent (ChunkIndexListener).
+ *
+ * Each world keeps its chunks in a dense array plus a key -> slot map, so adding, removing
+ * (swap with the last slot) and picking a uniformly random loaded chunk are all O(1).
+ * Chunks are packed as x << 32 | z.
+ *
+ * Main thread only.
+ */
+public class LoadedChunkIndex {
+    public static final long NONE = Long.MIN_VALUE;
+
+    private final Map<String, WorldIndex> worlds = new HashMap<>(); // key: bukkit world name
+
+    /**
+     * Track exactly the given worlds' loaded-chunks-only settings and fill each index from the chunks
+     * loaded right now. Called on enable and reload, after the world settings are loaded.
+     */
+    public void rebuild(WorldManager worldManager) {
+        worlds.clear();
+        for (String worldKey : worldManager.getValidWorldNames()) {
+            WorldManager.WorldSettings settings = worldManager.getWorldSettings(worldKey);
+            if (settings == null || !settings.isLoadedChunksOnly()) continue;
+
+            WorldIndex index = new WorldIndex(settings);
+            worlds.put(settings.getBukkitWorldName(), index);
+
+            World world = settings.getBukkitWorld();
+            if (world != null) {
+                for (Chunk chunk : world.getLoadedChunks()) {
+                    index.add(chunk.getX(), chunk.getZ());
+                }
+            }
+        }
+    }
+
+    public void add(Chunk chunk) {
+        WorldIndex index = worlds.get(chunk.getWorld().getName());
+        if (index != null) {
+            index.add(chunk.getX(), chunk.getZ());
+        }
+    }
+
+    public void remove(Chunk chunk) {
+        WorldIndex index = worlds.get(chunk.getWorld().getName());
+        if (index != null) {
+            index.remove(pack(chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    /**
+     * A uniformly random loaded chunk inside the world's bounds, or NONE.
+     */
+    public long pick(String bukkitWorldName, RandomGenerator random) {
+        WorldIndex index = worlds.get(bukkitWorldName);
+        if (index == null || index.size == 0) return NONE;
+        return index.keys[random.nextInt(index.size)];
+    }
+
+    public int size(String bukkitWorldName) {
+        WorldIndex index = worlds.get(bukkitWorldName);
+        return index != null ? index.size : 0;
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    public static long pack(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    public static int getX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int getZ(long key) {
+        return (int) key;
+    }
+
+    private static final class WorldIndex {
+        private final int minChunkX, maxChunkX, minChunkZ, maxChunkZ;
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private long[] keys = new long[256];
+        private int size = 0;
+
+        private WorldIndex(WorldManager.WorldSettings settings) {
+            this.minChunkX = Math.min(settings.getMinX(), settings.getMaxX()) >> 4;
+            this.maxChunkX = Math.max(settings.getMinX(), settings.getMaxX()) >> 4;
+            this.minChunkZ = Math.min(settings.getMinZ(), settings.getMaxZ()) >> 4;
+            this.maxChunkZ = Math.max(settings.getMinZ(), settings.getMaxZ()) >> 4;
+        }
+
+        private void add(int chunkX, int chunkZ) {
+            if (chunkX < minChunkX || chunkX > maxChunkX || chunkZ < minChunkZ || chunkZ > maxChunkZ) return;
+
+            long key = pack(chunkX, chunkZ);
+            if (slots.putIfAbsent(key, size) != null) return;
+
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+
+        private void remove(long key) {
+            Integer slot = slots.remove(key);
+            if (slot == null) return;
+
+            // move the last chunk into the freed slot
+            long last = keys[--size];
+            if (slot != size) {
+                keys[slot] = last;
+                slots.put(last, slot);
+            }
+        }
+    }
+}
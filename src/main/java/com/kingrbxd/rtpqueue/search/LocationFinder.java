@@ -0,0 +1,609 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import com.kingrbxd.rtpqueue.protection.ClaimIndex;
+import com.kingrbxd.rtpqueue.protection.ClaimVerdict;
+import io.papermc.lib.PaperLib;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LocationFinder
+ *
+ * Runs random safe-location searches for a configured world.
+ *
+ * Each search is a SearchRun. Session searches go through requestLocation, which runs at most one
+ * search per world and shares it between every session waiting on that world (single-flight); the
+ * pool refill uses findSafeLocation, which always runs its own search. All runs are driven by one
+ * search loop (SearchTicker) that dispatches candidates round-robin within a per-tick budget
+ * (TickBudget, teleport.search-budget) adapted to the server's MSPT.
+ *
+ * The finder owns what runs share: the per-world chunk-load limit, samplers, rejection memory,
+ * destination spacing, surface predictions, island masks (IslandMaskStore), material rules and stats.
+ * Chunks are loaded through PaperLib.getChunkAtAsync and only snapshotted on the main thread; the
+ * safety scan (SafetyScanner) runs on a bounded search executor (SearchExecutor). Every run draws from its own seeded random
+ * (SearchRandom), so a search can be replayed from its seed. Spare safe spots in the chunks a search
+ * scans are harvested for the location pool (ChunkHarvester).
+ * (On Spigot PaperLib falls back to a synchronous chunk load.)
+ */
+public class LocationFinder {
+    private final AdvancedRTPQueue plugin;
+    private final Map<String, AtomicInteger> chunkLoadsInFlight = new ConcurrentHashMap<>(); // key: bukkit world name
+    private final Set<SearchRun> activeRuns = ConcurrentHashMap.newKeySet();
+    private final Map<String, SearchRun> sharedRuns = new HashMap<>(); // key: bukkit world name, main thread only
+    private final SearchStats stats = new SearchStats();
+    private final SurfacePredictor surfacePredictor = new SurfacePredictor();
+    private final Map<String, RejectionMemory> rejectionMemories = new ConcurrentHashMap<>(); // key: bukkit world name
+    private final SamplerStore samplerStore;
+    private final TickBudget tickBudget = new TickBudget();
+    private final DestinationSpacing destinationSpacing = new DestinationSpacing();
+    private final LoadedChunkIndex loadedChunks = new LoadedChunkIndex();
+    private final ChunkHarvester harvester;
+    private final IslandMaskStore islandMasks;
+    private final SearchExecutor searchExecutor;
+    private SearchRandom searchRandom;
+    private boolean replayableSearches;
+    private SearchTicker ticker;
+    private volatile MaterialRules materialRules;
+
+    public LocationFinder(AdvancedRTPQueue plugin) {
+        this.plugin = plugin;
+        this.samplerStore = new SamplerStore(plugin);
+        this.harvester = new ChunkHarvester(plugin, this);
+        this.islandMasks = new IslandMaskStore(plugin);
+        this.searchExecutor = new SearchExecutor(
+                plugin.getConfigManager().getInt("teleport.search-executor.threads", 2),
+                plugin.getConfigManager().getInt("teleport.search-executor.queue-size", 256)
+        );
+        reload();
+    }
+
+    /**
+     * Recompile the material lookup table from teleport.unsafe-blocks. Called on enable and reload.
+     */
+    public void reload() {
+        MaterialRules rules = MaterialRules.compile(plugin.getConfigManager().getStringList("teleport.unsafe-blocks"));
+        for (String unknown : rules.getUnknownNames()) {
+            plugin.getLogger().warning("Unknown material in teleport.unsafe-blocks: " + unknown);
+        }
+        this.materialRules = rules;
+        rejectionMemories.clear();
+        islandMasks.save();
+        loadedChunks.rebuild(plugin.getWorldManager());
+        samplerStore.reload();
+        tickBudget.configure(
+                plugin.getConfigManager().getDouble("teleport.search-budget.max-ms-per-tick", 2.0),
+                plugin.getConfigManager().getDouble("teleport.search-budget.target-mspt", 40.0),
+                plugin.getConfigManager().getInt("teleport.search-budget.min-candidates-per-tick", 1),
+                plugin.getConfigManager().getInt("teleport.search-budget.max-candidates-per-tick", 50)
+        );
+        searchExecutor.setThreads(plugin.getConfigManager().getInt("teleport.search-executor.threads", 2));
+        destinationSpacing.configure(
+                plugin.getConfigManager().getBoolean("teleport.destination-spacing.enabled", true),
+                plugin.getConfigManager().getInt("teleport.destination-spacing.min-separation", 128),
+                Math.max(1, plugin.getConfigManager().getInt("teleport.destination-spacing.expiry", 900)) * 1000L
+        );
+
+        long seed = plugin.getConfig().getLong("teleport.search-random.seed", 0L);
+        searchRandom = new SearchRandom(seed != 0L ? seed : ThreadLocalRandom.current().nextLong());
+        replayableSearches = seed != 0L || plugin.getConfigManager().getBoolean("teleport.search-random.log-seeds");
+        if (plugin.getConfigManager().getBoolean("teleport.search-random.log-seeds")) {
+            plugin.getLogger().info("Location search master seed: " + searchRandom.getMasterSeed());
+        }
+    }
+
+    /**
+     * Start a search for a safe location in the given world.
+     *
+     * The returned future completes on the main thread with:
+     *  - the safe location that was found
+     *  - null once max-attempts candidates have been checked without success
+     *  - a TimeoutException if teleport.search-timeout elapses first
+     *
+     * Cancelling the future stops the search.
+     */
+    public CompletableFuture<Location> findSafeLocation(WorldManager.WorldSettings worldSettings) {
+        if (worldSettings == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        SearchRun run = new SearchRun(this, plugin, worldSettings);
+        CompletableFuture<Location> request = run.join();
+        startRun(run);
+        return request;
+    }
+
+    /**
+     * Request a safe location for a teleport session. Must be called on the main thread.
+     *
+     * Requests for the same world share one search: a request that arrives while the world's search
+     * is running joins it and adds its own max-attempts budget, and the search keeps going until every
+     * joined request has its own location. Locations are handed out in join order and each request
+     * times out on its own, teleport.search-timeout after it joined.
+     *
+     * The returned future completes like findSafeLocation's; cancelling it withdraws the request.
+     */
+    public CompletableFuture<Location> requestLocation(WorldManager.WorldSettings worldSettings) {
+        if (worldSettings == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        SearchRun shared = sharedRuns.get(worldSettings.getBukkitWorldName());
+        if (shared != null) {
+            CompletableFuture<Location> request = shared.join();
+            if (request != null) {
+                return request;
+            }
+        }
+
+        SearchRun run = new SearchRun(this, plugin, worldSettings);
+        CompletableFuture<Location> request = run.join();
+        sharedRuns.put(worldSettings.getBukkitWorldName(), run);
+        startRun(run);
+        return request;
+    }
+
+    /**
+     * Spread a group around an anchor: returns count landing spots, the anchor first, every other spot
+     * a distinct safe column near it (teleport.group-landing). The spots come from one snapshot of the
+     * anchor's chunk, which the teleport loads anyway, and are scanned on a worker thread; claims are
+     * checked per spot on the main thread. If there are not enough spots the anchor is repeated.
+     *
+     * Completes on the main thread. Must be called on the main thread.
+     */
+    public CompletableFuture<List<Location>> disperse(Location anchor, int count) {
+        CompletableFuture<List<Location>> result = new CompletableFuture<>();
+        List<Location> spots = new ArrayList<>();
+        spots.add(anchor);
+        if (count <= 1 || anchor.getWorld() == null) {
+            result.complete(fillWithAnchor(spots, anchor, count));
+            return result;
+        }
+
+        World world = anchor.getWorld();
+        int radius = Math.max(1, Math.min(13, plugin.getConfigManager().getInt("teleport.group-landing.radius", 6)));
+        int minSpacing = Math.max(1, plugin.getConfigManager().getInt("teleport.group-landing.min-spacing", 2));
+        int maxDy = Math.max(0, plugin.getConfigManager().getInt("teleport.group-landing.max-height-difference", 3));
+
+        PaperLib.getChunkAtAsync(anchor).whenComplete((chunk, error) -> {
+            if (error != null || chunk == null || !plugin.isEnabled()) {
+                result.complete(fillWithAnchor(spots, anchor, count));
+                return;
+            }
+
+            ChunkSnapshot snapshot = chunk.getChunkSnapshot(true, false, false);
+            SafetyScanner scanner = createScanner(world, world.getMinHeight(), world.getMaxHeight() - 1);
+            int baseX = chunk.getX() << 4;
+            int baseZ = chunk.getZ() << 4;
+
+            boolean queued = searchExecutor.execute(() -> {
+                List<int[]> found;
+                try {
+                    found = scanner.findNearbySpots(snapshot, anchor.getBlockX() & 15, anchor.getBlockY(), anchor.getBlockZ() & 15,
+                            radius, minSpacing, maxDy, count - 1);
+                } catch (Exception e) {
+                    found = Collections.emptyList();
+                }
+
+                List<int[]> candidates = found;
+                runOnMainThread(() -> {
+                    boolean[] claimed = areClaimed(world, baseX, baseZ, candidates);
+                    for (int i = 0; i < candidates.size() && spots.size() < count; i++) {
+                        if (claimed[i]) continue;
+                        int[] spot = candidates.get(i);
+                        spots.add(new Location(world, baseX + spot[0] + 0.5, spot[1], baseZ + spot[2] + 0.5,
+                                anchor.getYaw(), anchor.getPitch()));
+                    }
+
+                    if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                        plugin.getLogger().info("Group landing: " + spots.size() + "/" + count + " distinct spots around "
+                                + anchor.getBlockX() + "," + anchor.getBlockY() + "," + anchor.getBlockZ());
+                    }
+                    result.complete(fillWithAnchor(spots, anchor, count));
+                });
+            });
+            if (!queued) {
+                result.complete(fillWithAnchor(spots, anchor, count));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Whether any teleport session is waiting on a search. Background work yields while it is.
+     */
+    public boolean hasWaitingRequests() {
+        return !sharedRuns.isEmpty();
+    }
+
+    private static List<Location> fillWithAnchor(List<Location> spots, Location anchor, int count) {
+        while (spots.size() < count) {
+            spots.add(anchor);
+        }
+        return spots;
+    }
+
+    public DestinationSpacing getDestinationSpacing() {
+        return destinationSpacing;
+    }
+
+    public TickBudget getTickBudget() {
+        return tickBudget;
+    }
+
+    public LoadedChunkIndex getLoadedChunkIndex() {
+        return loadedChunks;
+    }
+
+    public ChunkHarvester getHarvester() {
+        return harvester;
+    }
+
+    private void startRun(SearchRun run) {
+        activeRuns.add(run);
+        if (ticker == null) {
+            ticker = new SearchTicker();
+            ticker.runTaskTimer(plugin, 1L, 1L);
+        }
+    }
+
+    /**
+     * Number of chunk loads currently in flight for a world (bukkit world name).
+     */
+    public int getChunkLoadsInFlight(String bukkitWorldName) {
+        AtomicInteger counter = chunkLoadsInFlight.get(bukkitWorldName);
+        return counter != null ? counter.get() : 0;
+    }
+
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Detailed safety check of a single location against a snapshot of its chunk.
+     * Must be called on the main thread; loads the chunk if it is not loaded.
+     */
+    public boolean isSafeLocation(Location location) {
+        if (!plugin.getConfigManager().getBoolean("teleport.safe-teleport", true)) {
+            return true;
+        }
+        if (location == null || location.getWorld() == null) {
+            if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                plugin.getLogger().info("Location check failed: null location or world");
+            }
+            return false;
+        }
+
+        World world = location.getWorld();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+
+        try {
+            ChunkSnapshot snapshot = world.getChunkAt(x >> 4, z >> 4).getChunkSnapshot(true, false, false);
+            ChunkSnapshot[] neighbours = new ChunkSnapshot[9];
+            for (int[] offset : getNeighbourOffsets(x & 15, z & 15)) {
+                neighbours[SafetyScanner.neighbourIndex(offset[0], offset[1])] =
+                        world.getChunkAt((x >> 4) + offset[0], (z >> 4) + offset[1]).getChunkSnapshot(false, false, false);
+            }
+            // single-location check: the configured Y range does not apply
+            SafetyScanner scanner = createScanner(world, world.getMinHeight(), world.getMaxHeight() - 1);
+            RejectReason reason = scanner.check(snapshot, x & 15, y, z & 15, neighbours);
+            if (reason == null && isClaimed(location)) {
+                reason = RejectReason.CLAIMED;
+            }
+
+            if (reason != null) {
+                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                    plugin.getLogger().info("Location unsafe: " + reason.getDescription() + " at " + x + "," + y + "," + z);
+                }
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                plugin.getLogger().warning("Error checking location safety: " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The background version of isSafeLocation, for pooled locations: the chunk is snapshotted here
+     * (edge columns also load the bordering chunks asynchronously) and the safety scan (and the claim
+     * check, with a claim index) runs on the search executor. Completes on the main thread with
+     * true/false, or null if the executor was full and the location was not checked. Must be called
+     * on the main thread.
+     */
+    public CompletableFuture<Boolean> revalidate(Chunk chunk, Location location) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (!plugin.getConfigManager().getBoolean("teleport.safe-teleport", true)) {
+            result.complete(true);
+            return result;
+        }
+
+        World world = chunk.getWorld();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(true, false, false);
+        // single-location check: the configured Y range does not apply
+        SafetyScanner scanner = createScanner(world, world.getMinHeight(), world.getMaxHeight() - 1);
+
+        ClaimIndex claimIndex = getClaimIndex();
+
+        // bordering chunks are not generated here; a missing one leaves its slot empty, which the
+        // scanner treats as dangerous
+        List<int[]> offsets = getNeighbourOffsets(x & 15, z & 15);
+        ChunkSnapshot[] neighbours = new ChunkSnapshot[9];
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[offsets.size()];
+        for (int i = 0; i < offsets.size(); i++) {
+            int[] offset = offsets.get(i);
+            int slot = SafetyScanner.neighbourIndex(offset[0], offset[1]);
+            loads[i] = PaperLib.getChunkAtAsync(world, chunk.getX() + offset[0], chunk.getZ() + offset[1], false)
+                    .thenAccept(neighbour -> {
+                        if (neighbour != null) neighbours[slot] = neighbour.getChunkSnapshot(false, false, false);
+                    });
+        }
+
+        CompletableFuture.allOf(loads).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                result.complete(false);
+                return;
+            }
+            boolean queued = searchExecutor.execute(() -> {
+                boolean safe;
+                try {
+                    safe = scanner.check(snapshot, x & 15, y, z & 15, neighbours) == null
+                            && (claimIndex == null || !claimIndex.isClaimed(world.getName(), x, z));
+                } catch (Exception e) {
+                    safe = false;
+                }
+
+                boolean scanned = safe;
+                runOnMainThread(() -> result.complete(scanned && (claimIndex != null || !isClaimed(location))));
+            });
+            if (!queued) {
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Chunk offsets ({dx, dz}) the 3x3 neighbourhood of a chunk-local column reaches into; empty for
+     * columns 1-14.
+     */
+    private static List<int[]> getNeighbourOffsets(int localX, int localZ) {
+        if (!SafetyScanner.needsNeighbours(localX, localZ)) return Collections.emptyList();
+
+        int dx = localX == 0 ? -1 : localX == 15 ? 1 : 0;
+        int dz = localZ == 0 ? -1 : localZ == 15 ? 1 : 0;
+        List<int[]> offsets = new ArrayList<>(3);
+        if (dx != 0) offsets.add(new int[]{dx, 0});
+        if (dz != 0) offsets.add(new int[]{0, dz});
+        if (dx != 0 && dz != 0) offsets.add(new int[]{dx, dz});
+        return offsets;
+    }
+
+    public void shutdown() {
+        for (SearchRun run : new ArrayList<>(activeRuns)) {
+            run.cancelRequests();
+            run.finish();
+        }
+        activeRuns.clear();
+        sharedRuns.clear();
+        if (ticker != null) {
+            ticker.cancel();
+            ticker = null;
+        }
+        chunkLoadsInFlight.clear();
+        searchExecutor.shutdown();
+        surfacePredictor.clear();
+        rejectionMemories.clear();
+        destinationSpacing.clear();
+        loadedChunks.clear();
+        islandMasks.save();
+        samplerStore.save();
+    }
+
+    /**
+     * Called by a run when it finishes.
+     */
+    void runFinished(SearchRun run) {
+        activeRuns.remove(run);
+        sharedRuns.remove(run.getWorldSettings().getBukkitWorldName(), run);
+    }
+
+    /**
+     * The coordinate sampler for a new search. With a fixed or logged seed every search must be
+     * replayable from its seed alone, so it gets a fresh sampler drawn from that seed.
+     */
+    CoordinateSampler getSampler(String bukkitWorldName, long searchSeed) {
+        return replayableSearches
+                ? samplerStore.createSeededSampler(searchSeed)
+                : samplerStore.getSampler(bukkitWorldName, searchRandom.getWorldSeed(bukkitWorldName));
+    }
+
+    long nextSearchSeed(String bukkitWorldName) {
+        return searchRandom.nextSearchSeed(bukkitWorldName);
+    }
+
+    boolean executeSearchTask(Runnable task) {
+        return searchExecutor.execute(task);
+    }
+
+    SurfacePredictor getSurfacePredictor() {
+        return surfacePredictor;
+    }
+
+    IslandMaskStore getIslandMasks() {
+        return islandMasks;
+    }
+
+    SafetyScanner createScanner(World world, int minY, int maxY) {
+        return new SafetyScanner(world, minY, maxY, materialRules);
+    }
+
+    /**
+     * Scanner for a world's search: its configured Y range and its search strategy.
+     */
+    SafetyScanner createScanner(World world, WorldManager.WorldSettings worldSettings) {
+        return worldSettings.getStrategy().createScanner(world, worldSettings, materialRules);
+    }
+
+    /**
+     * Hand a worker's result back to the main thread. Nothing can be scheduled once the plugin is
+     * disabled; by then shutdown() has finished every run, so the result is dropped.
+     */
+    void runOnMainThread(Runnable task) {
+        try {
+            Bukkit.getScheduler().runTask(plugin, task);
+        } catch (IllegalPluginAccessException e) {
+            // disabled while the worker was running
+        }
+    }
+
+    /**
+     * The rejection memory for a world, rebuilt if its bounds changed. Null when disabled.
+     */
+    RejectionMemory getRejectionMemory(WorldManager.WorldSettings worldSettings) {
+        if (!plugin.getConfigManager().getBoolean("teleport.rejection-memory.enabled", true)) {
+            return null;
+        }
+
+        RejectionMemory memory = rejectionMemories.get(worldSettings.getBukkitWorldName());
+        if (memory == null || !memory.covers(worldSettings.getMinX(), worldSettings.getMaxX(),
+                worldSettings.getMinZ(), worldSettings.getMaxZ())) {
+            memory = new RejectionMemory(worldSettings.getMinX(), worldSettings.getMaxX(),
+                    worldSettings.getMinZ(), worldSettings.getMaxZ(),
+                    plugin.getConfigManager().getInt("teleport.rejection-memory.cell-size", 32));
+            rejectionMemories.put(worldSettings.getBukkitWorldName(), memory);
+        }
+        return memory;
+    }
+
+    boolean isClaimed(Location location) {
+        return plugin.getConfigManager().getBoolean("claim-protection.enabled") &&
+                plugin.getClaimProtectionHandler() != null &&
+                plugin.getClaimProtectionHandler().isLocationClaimed(location);
+    }
+
+    /**
+     * Batch claim check of spots ({localX, y, localZ}) in the chunk at baseX/baseZ
+     */
+    boolean[] areClaimed(World world, int baseX, int baseZ, List<int[]> spots) {
+        if (spots.isEmpty() || !plugin.getConfigManager().getBoolean("claim-protection.enabled") ||
+                plugin.getClaimProtectionHandler() == null) {
+            return new boolean[spots.size()];
+        }
+
+        int[] columns = new int[spots.size() * 2];
+        for (int i = 0; i < spots.size(); i++) {
+            columns[i * 2] = baseX + spots.get(i)[0];
+            columns[i * 2 + 1] = baseZ + spots.get(i)[2];
+        }
+        return plugin.getClaimProtectionHandler().areColumnsClaimed(world, columns);
+    }
+
+    /**
+     * The spatial claim index if claim protection is on and the index is ready, else null
+     */
+    ClaimIndex getClaimIndex() {
+        if (!plugin.getConfigManager().getBoolean("claim-protection.enabled") || plugin.getClaimProtectionHandler() == null) {
+            return null;
+        }
+        return plugin.getClaimProtectionHandler().getClaimIndex();
+    }
+
+    /**
+     * Drop harvested spots ({localX, feetY, localZ}) that lie in a claim. Worker threads; no-op
+     * without a claim index.
+     */
+    static void removeClaimed(ClaimIndex claimIndex, String worldName, int baseX, int baseZ, List<int[]> spots) {
+        if (claimIndex == null || spots.isEmpty()) return;
+        spots.removeIf(spot -> claimIndex.isClaimed(worldName, baseX + spot[0], baseZ + spot[2]));
+    }
+
+    /**
+     * Whether the claim integrations report the whole chunk as claimed (cached per chunk)
+     */
+    boolean isChunkClaimed(World world, int chunkX, int chunkZ) {
+        if (!plugin.getConfigManager().getBoolean("claim-protection.enabled") || plugin.getClaimProtectionHandler() == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean claimed = plugin.getClaimProtectionHandler().getChunkVerdict(world, chunkX, chunkZ) == ClaimVerdict.CLAIMED;
+        long elapsed = System.nanoTime() - start;
+        tickBudget.charge(elapsed);
+        stats.recordLatency(world.getName(), SearchStats.Stage.CLAIM_CHECK, elapsed);
+        return claimed;
+    }
+
+    boolean tryAcquireChunkLoad(World world) {
+        int limit = Math.max(1, plugin.getConfigManager().getInt("teleport.async-chunk-loading.max-in-flight", 4));
+        AtomicInteger counter = chunkLoadsInFlight.computeIfAbsent(world.getName(), k -> new AtomicInteger());
+        while (true) {
+            int current = counter.get();
+            if (current >= limit) return false;
+            if (counter.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    void releaseChunkLoad(World world) {
+        AtomicInteger counter = chunkLoadsInFlight.get(world.getName());
+        if (counter != null && counter.decrementAndGet() < 0) {
+            counter.set(0);
+        }
+    }
+
+    /**
+     * The search loop: every tick, prepares each run and then dispatches candidates from the ready runs
+     * in turn until the tick budget is used up. Cancels itself when no runs are left.
+     */
+    private final class SearchTicker extends BukkitRunnable {
+        @Override
+        public void run() {
+            if (activeRuns.isEmpty()) {
+                cancel();
+                ticker = null;
+                return;
+            }
+
+            tickBudget.beginTick(System.nanoTime());
+
+            List<SearchRun> ready = new ArrayList<>();
+            for (SearchRun run : new ArrayList<>(activeRuns)) {
+                if (run.prepareTick()) {
+                    ready.add(run);
+                }
+            }
+
+            int dispatched = 0;
+            while (!ready.isEmpty() && tickBudget.allows(dispatched, System.nanoTime())) {
+                Iterator<SearchRun> it = ready.iterator();
+                while (it.hasNext() && tickBudget.allows(dispatched, System.nanoTime())) {
+                    if (it.next().dispatchNext()) {
+                        dispatched++;
+                    } else {
+                        it.remove();
+                    }
+                }
+            }
+
+            tickBudget.endTick(System.nanoTime());
+        }
+    }
+}
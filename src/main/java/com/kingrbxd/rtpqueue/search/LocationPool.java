@@ -0,0 +1,529 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import io.papermc.lib.PaperLib;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * LocationPool
+ *
+ * Per-world pool of verified safe locations so matched groups can teleport without waiting for a search.
+ *
+ * - Entries live in two ConcurrentLinkedDeques per world, so the pool can be read from async threads:
+ *   ready (validated and current) and stale (waiting for or under revalidation)
+ * - A refill starts as soon as a world drops below the low watermark and keeps searching until
+ *   the high watermark is reached
+ * - Entries not validated within the TTL are evicted
+ * - With teleport.location-pool.persist the pool is mirrored to disk (LocationPoolStore) and restored
+ *   at enable. Restored entries start out stale, because the terrain may have changed while the
+ *   server was down.
+ * - Every entry remembers when it was validated and the inhabited time of its chunk at that moment.
+ *   A chunk whose inhabited time moved on (players were around, so blocks may have changed) moves its
+ *   entries to the stale queue, checked at take time for loaded chunks and at unload for the others
+ * - Stale entries are never handed out; maintain() revalidates them in the background from a chunk
+ *   snapshot scanned on the search executor (teleport.location-pool.revalidate.max-in-flight) and
+ *   moves the safe ones back to ready. Take polls the head of ready without any block reads on the
+ *   main thread
+ * - Spare revalidation slots go to ready entries within revalidate.refresh-before seconds of their
+ *   TTL, which restarts the TTL of the ones still safe, so they stay in the pool
+ * - Moving entries between the queues (going stale, revalidated, passed over by a take filter) only
+ *   happens in memory; the store is written when an entry is added or leaves the pool for good
+ *
+ * Pools are keyed by bukkit world name.
+ */
+public class LocationPool {
+    private static final int MAX_FAILED_REFILL_SEARCHES = 3;
+
+    private final AdvancedRTPQueue plugin;
+    private final Map<String, WorldPool> pools = new ConcurrentHashMap<>();
+    private final LocationPoolStore store;
+    private final AtomicInteger revalidationsInFlight = new AtomicInteger();
+    private volatile boolean shutdown = false;
+
+    public LocationPool(AdvancedRTPQueue plugin) {
+        this.plugin = plugin;
+        this.store = plugin.getConfigManager().getBoolean("teleport.location-pool.persist", true)
+                ? new LocationPoolStore(plugin.getDataFolder(), plugin.getLogger(), this::snapshot)
+                : null;
+        restore();
+    }
+
+    /**
+     * Take the oldest non-expired location for a world, or null if the pool is empty.
+     * Taking a location below the low watermark wakes up the refiller.
+     */
+    public Location take(String bukkitWorldName) {
+        return take(bukkitWorldName, null);
+    }
+
+    /**
+     * Take the oldest ready location for a world that passes the filter, or null if none does.
+     * Must be called on the main thread (stale checks read the chunk's inhabited time).
+     * Taking a location below the low watermark wakes up the refiller.
+     */
+    public Location take(String bukkitWorldName, Predicate<Location> filter) {
+        if (bukkitWorldName == null) return null;
+        WorldPool pool = pools.get(bukkitWorldName);
+        if (pool == null) return null;
+
+        PooledLocation entry = takeEntry(pool, filter);
+        if (pool.size.get() < getLowWatermark()) {
+            requestRefill(bukkitWorldName);
+        }
+        return entry != null ? entry.getLocation() : null;
+    }
+
+    /**
+     * Poll the ready queue for an entry that passes the filter. Every entry handed out was validated
+     * within the TTL (by the search that pooled it or by a background revalidation), and its chunk has
+     * not been inhabited since: loaded chunks are checked here, unloaded ones were checked when they
+     * unloaded (onChunkUnload). Expired entries are dropped and stale ones move to the stale queue;
+     * entries the filter rejects are still valid and go to the back of the ready queue. Each entry is
+     * looked at no more than once per call.
+     */
+    private PooledLocation takeEntry(WorldPool pool, Predicate<Location> filter) {
+        long ttl = getTtlMillis();
+        PooledLocation entry;
+        int remaining = pool.ready.size();
+        while (remaining-- > 0 && (entry = pool.ready.pollFirst()) != null) {
+            if (entry.isExpired(ttl)) {
+                dropped(pool, entry);
+                continue;
+            }
+            if (isStale(entry)) {
+                markStale(pool, entry);
+                continue;
+            }
+            if (filter != null && !filter.test(entry.getLocation())) {
+                pool.ready.offerLast(entry); // still valid, just not for this caller
+                continue;
+            }
+            dropped(pool, entry);
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Add a verified location to its world's pool. Returns false if the pool is already full.
+     */
+    public boolean offer(Location location) {
+        if (location == null || location.getWorld() == null) return false;
+
+        WorldPool pool = getPool(location.getWorld().getName());
+        if (pool.size.get() >= getHighWatermark()) {
+            return false;
+        }
+
+        PooledLocation entry = new PooledLocation(location, System.currentTimeMillis());
+        entry.inhabitedTime = getInhabitedTime(location);
+        pool.ready.offerLast(entry);
+        pool.size.incrementAndGet();
+        if (store != null) {
+            store.appendAdd(location.getWorld().getName(), location.getX(), location.getY(), location.getZ(), entry.getCreatedAt());
+        }
+        return true;
+    }
+
+    /**
+     * Whether the pool would accept another location for a world right now.
+     */
+    public boolean hasRoom(String bukkitWorldName) {
+        return !shutdown && isEnabled() && size(bukkitWorldName) < getHighWatermark();
+    }
+
+    public int size(String bukkitWorldName) {
+        WorldPool pool = pools.get(bukkitWorldName);
+        return pool != null ? pool.size.get() : 0;
+    }
+
+    /**
+     * Periodic maintenance: evict expired entries, revalidate stale entries and entries close to
+     * expiry, and refill every configured world that is below the low watermark.
+     * Called from LocationPoolTask on the main thread.
+     */
+    public void maintain() {
+        if (!isEnabled()) return;
+
+        long ttl = getTtlMillis();
+        for (WorldPool pool : pools.values()) {
+            evictExpired(pool, ttl);
+        }
+        // never refresh more than halfway through the TTL, so entries are not re-checked constantly
+        revalidateStale(Math.max(ttl / 2, ttl - getRefreshBeforeMillis()));
+
+        for (String worldKey : plugin.getWorldManager().getValidWorldNames()) {
+            WorldManager.WorldSettings ws = plugin.getWorldManager().getWorldSettings(worldKey);
+            if (ws == null) continue;
+            if (size(ws.getBukkitWorldName()) < getLowWatermark()) {
+                requestRefill(ws.getBukkitWorldName());
+            }
+        }
+    }
+
+    /**
+     * Start refilling a world's pool up to the high watermark unless a refill is already running.
+     */
+    public void requestRefill(String bukkitWorldName) {
+        if (shutdown || !isEnabled() || bukkitWorldName == null) return;
+
+        WorldManager.WorldSettings worldSettings = findWorldSettings(bukkitWorldName);
+        if (worldSettings == null) return;
+
+        WorldPool pool = getPool(bukkitWorldName);
+        if (!pool.refilling.compareAndSet(false, true)) return;
+
+        if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+            plugin.getLogger().info("Refilling location pool for " + bukkitWorldName + " (" + pool.size.get() + "/" + getHighWatermark() + ")");
+        }
+        refillStep(worldSettings, pool, 0);
+    }
+
+    private void refillStep(WorldManager.WorldSettings worldSettings, WorldPool pool, int failedSearches) {
+        if (shutdown || !isEnabled() || pool.size.get() >= getHighWatermark()
+                || failedSearches >= MAX_FAILED_REFILL_SEARCHES) {
+            pool.refilling.set(false);
+            return;
+        }
+
+        plugin.getLocationFinder().findSafeLocation(worldSettings).whenComplete((location, error) -> {
+            if (error != null || location == null) {
+                refillStep(worldSettings, pool, failedSearches + 1);
+                return;
+            }
+            offer(location);
+            refillStep(worldSettings, pool, 0);
+        });
+    }
+
+    private void evictExpired(WorldPool pool, long ttl) {
+        for (Iterator<PooledLocation> it = pool.ready.iterator(); it.hasNext(); ) {
+            PooledLocation entry = it.next();
+            if (entry.isExpired(ttl) || !entry.getLocation().isWorldLoaded()) {
+                it.remove();
+                dropped(pool, entry);
+            }
+        }
+        for (Iterator<PooledLocation> it = pool.stale.iterator(); it.hasNext(); ) {
+            PooledLocation entry = it.next();
+            if (!entry.isValidating() && (entry.isExpired(ttl) || !entry.getLocation().isWorldLoaded())) {
+                it.remove();
+                dropped(pool, entry);
+            }
+        }
+    }
+
+    /**
+     * A chunk is unloading: entries in it go stale if players were around since they were validated,
+     * or if the inhabited time at their validation is unknown. Called from ChunkIndexListener on the
+     * main thread.
+     */
+    public void onChunkUnload(Chunk chunk) {
+        WorldPool pool = pools.get(chunk.getWorld().getName());
+        if (pool == null) return;
+
+        long inhabitedTime = chunk.getInhabitedTime();
+        for (Iterator<PooledLocation> it = pool.ready.iterator(); it.hasNext(); ) {
+            PooledLocation entry = it.next();
+            Location location = entry.getLocation();
+            if (location.getBlockX() >> 4 == chunk.getX() && location.getBlockZ() >> 4 == chunk.getZ()
+                    && entry.inhabitedTime != inhabitedTime) {
+                it.remove();
+                markStale(pool, entry);
+            }
+        }
+    }
+
+    private static void markStale(WorldPool pool, PooledLocation entry) {
+        entry.needsRevalidation = true;
+        pool.stale.offerLast(entry);
+    }
+
+    /**
+     * Whether a ready entry must be checked again before use: its loaded chunk has been inhabited
+     * since it was validated. Main thread only.
+     */
+    private boolean isStale(PooledLocation entry) {
+        if (entry.needsRevalidation) return true;
+
+        Location location = entry.getLocation();
+        World world = location.getWorld();
+        if (world == null) return true;
+        if (!world.isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+            return false; // unchanged since its last unload, see onChunkUnload
+        }
+
+        long inhabitedTime = world.getChunkAt(location.getBlockX() >> 4, location.getBlockZ() >> 4).getInhabitedTime();
+        if (entry.inhabitedTime < 0) {
+            entry.inhabitedTime = inhabitedTime; // first look at a chunk that was unloaded when the entry was pooled
+            return false;
+        }
+        return inhabitedTime != entry.inhabitedTime;
+    }
+
+    /**
+     * Re-check stale entries off the main thread, at most revalidate.max-in-flight at a time; spare
+     * slots go to the ready entries validated more than refreshAfter ms ago. Chunks are loaded
+     * asynchronously (never generated) and scanned by LocationFinder.revalidate. Safe entries are
+     * marked validated and move back to the ready queue; unsafe ones are removed.
+     */
+    private void revalidateStale(long refreshAfter) {
+        // at least one: restored entries are only ever handed out after this check
+        int limit = Math.max(1, plugin.getConfigManager().getInt("teleport.location-pool.revalidate.max-in-flight", 4));
+        for (WorldPool pool : pools.values()) {
+            for (PooledLocation entry : pool.stale) {
+                if (revalidationsInFlight.get() >= limit) return;
+                if (!entry.isValidating()) {
+                    startRevalidation(pool, entry);
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (WorldPool pool : pools.values()) {
+            for (Iterator<PooledLocation> it = pool.ready.iterator(); it.hasNext(); ) {
+                if (revalidationsInFlight.get() >= limit) return;
+                PooledLocation entry = it.next();
+                // not a break: entries a take filter passed over sit behind newer ones
+                if (now - entry.validatedAt <= refreshAfter) continue;
+
+                it.remove();
+                markStale(pool, entry);
+                startRevalidation(pool, entry);
+            }
+        }
+    }
+
+    private void startRevalidation(WorldPool pool, PooledLocation entry) {
+        Location location = entry.getLocation();
+        World world = location.getWorld();
+        if (world == null) return;
+
+        entry.validating = true;
+        revalidationsInFlight.incrementAndGet();
+        PaperLib.getChunkAtAsync(world, location.getBlockX() >> 4, location.getBlockZ() >> 4, false)
+                .whenComplete((chunk, error) -> {
+                    if (chunk == null || error != null || shutdown) {
+                        finishRevalidation(pool, entry, chunk == null && error == null ? Boolean.FALSE : null, -1);
+                        return;
+                    }
+                    long inhabitedTime = chunk.getInhabitedTime();
+                    plugin.getLocationFinder().revalidate(chunk, location)
+                            .whenComplete((safe, failure) -> finishRevalidation(pool, entry, failure != null ? null : safe, inhabitedTime));
+                });
+    }
+
+    /**
+     * safe: true = still safe, false = unsafe or gone, null = not checked (tried again next run)
+     */
+    private void finishRevalidation(WorldPool pool, PooledLocation entry, Boolean safe, long inhabitedTime) {
+        revalidationsInFlight.decrementAndGet();
+        entry.validating = false;
+        if (safe == null) return;
+
+        if (!pool.stale.removeFirstOccurrence(entry)) return; // evicted or cleared meanwhile
+
+        if (safe) {
+            entry.validatedAt = System.currentTimeMillis();
+            entry.inhabitedTime = inhabitedTime;
+            entry.needsRevalidation = false;
+            pool.ready.offerLast(entry);
+        } else {
+            dropped(pool, entry);
+            if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                Location location = entry.getLocation();
+                plugin.getLogger().info("Dropped pooled location " + location.getBlockX() + "," + location.getBlockY() + ","
+                        + location.getBlockZ() + " in " + entry.getWorldName() + ": no longer safe");
+            }
+        }
+    }
+
+    /**
+     * Account for an entry that was just taken out of its queue for good.
+     */
+    private void dropped(WorldPool pool, PooledLocation entry) {
+        pool.size.decrementAndGet();
+        persistRemove(entry);
+    }
+
+    /**
+     * The inhabited time of a location's chunk, or -1 if it is not loaded (or off the main thread)
+     */
+    private static long getInhabitedTime(Location location) {
+        World world = location.getWorld();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        if (world == null || !Bukkit.isPrimaryThread() || !world.isChunkLoaded(chunkX, chunkZ)) return -1;
+        return world.getChunkAt(chunkX, chunkZ).getInhabitedTime();
+    }
+
+    public void clear() {
+        for (String bukkitWorldName : pools.keySet()) {
+            if (store != null) {
+                store.rewrite(bukkitWorldName, new ArrayList<>());
+            }
+        }
+        pools.clear();
+    }
+
+    /**
+     * Stop all refills, write the pools to disk and drop them from memory.
+     */
+    public void shutdown() {
+        shutdown = true;
+        if (store != null) {
+            for (String bukkitWorldName : pools.keySet()) {
+                store.rewrite(bukkitWorldName, snapshot(bukkitWorldName));
+            }
+            store.close();
+        }
+        pools.clear();
+    }
+
+    /**
+     * Load persisted pools for every configured world that is loaded. Restored entries get a fresh
+     * TTL and are revalidated in the background before they are handed out; nothing here reads or
+     * loads a chunk. The first revalidation runs on the next tick instead of waiting for maintain().
+     */
+    private void restore() {
+        if (store == null || !isEnabled()) return;
+
+        int high = getHighWatermark();
+        long now = System.currentTimeMillis();
+        for (String worldKey : plugin.getWorldManager().getValidWorldNames()) {
+            WorldManager.WorldSettings ws = plugin.getWorldManager().getWorldSettings(worldKey);
+            World world = ws != null ? ws.getBukkitWorld() : null;
+            if (world == null) continue;
+
+            WorldPool pool = getPool(world.getName());
+            for (LocationPoolStore.StoredLocation stored : store.load(world.getName())) {
+                if (pool.size.get() >= high) break;
+                Location location = new Location(world, stored.getX(), stored.getY(), stored.getZ());
+                pool.stale.offerLast(new PooledLocation(location, now, true));
+                pool.size.incrementAndGet();
+            }
+
+            store.rewrite(world.getName(), snapshot(world.getName()));
+            if (pool.size.get() > 0) {
+                plugin.getLogger().info("Restored " + pool.size.get() + " pooled locations for " + world.getName());
+            }
+        }
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (!shutdown) revalidateStale(Long.MAX_VALUE);
+        });
+    }
+
+    private List<PooledLocation> snapshot(String bukkitWorldName) {
+        WorldPool pool = pools.get(bukkitWorldName);
+        if (pool == null) return new ArrayList<>();
+
+        List<PooledLocation> entries = new ArrayList<>(pool.ready);
+        entries.addAll(pool.stale);
+        return entries;
+    }
+
+    private void persistRemove(PooledLocation entry) {
+        if (store == null) return;
+        Location location = entry.getLocation();
+        store.appendRemove(entry.getWorldName(), location.getX(), location.getY(), location.getZ());
+    }
+
+    private WorldPool getPool(String bukkitWorldName) {
+        return pools.computeIfAbsent(bukkitWorldName, k -> new WorldPool());
+    }
+
+    private WorldManager.WorldSettings findWorldSettings(String bukkitWorldName) {
+        for (String key : plugin.getWorldManager().getValidWorldNames()) {
+            WorldManager.WorldSettings ws = plugin.getWorldManager().getWorldSettings(key);
+            if (ws != null && bukkitWorldName.equalsIgnoreCase(ws.getBukkitWorldName())) {
+                return ws;
+            }
+        }
+        return null;
+    }
+
+    private boolean isEnabled() {
+        return plugin.getConfigManager().getBoolean("teleport.cache-safe-locations");
+    }
+
+    private int getLowWatermark() {
+        return Math.max(0, plugin.getConfigManager().getInt("teleport.location-pool.low-watermark", 5));
+    }
+
+    private int getHighWatermark() {
+        int legacy = plugin.getConfigManager().getInt("teleport.max-cached-locations", 15);
+        return Math.max(1, plugin.getConfigManager().getInt("teleport.location-pool.high-watermark", legacy));
+    }
+
+    private long getTtlMillis() {
+        return Math.max(1, plugin.getConfigManager().getInt("teleport.location-pool.ttl", 600)) * 1000L;
+    }
+
+    private long getRefreshBeforeMillis() {
+        return Math.max(0, plugin.getConfigManager().getInt("teleport.location-pool.revalidate.refresh-before", 60)) * 1000L;
+    }
+
+    /**
+     * Pool entry: a verified location, when it was pooled and last validated, and the inhabited time
+     * of its chunk at that validation (-1 if unknown). Entries restored from disk or marked stale
+     * need to be revalidated before use.
+     */
+    public static class PooledLocation {
+        private final Location location;
+        private final String worldName;
+        private final long createdAt;
+        private volatile long validatedAt;
+        private volatile long inhabitedTime = -1;
+        private volatile boolean needsRevalidation;
+        private volatile boolean validating = false;
+
+        public PooledLocation(Location location, long createdAt) {
+            this(location, createdAt, false);
+        }
+
+        public PooledLocation(Location location, long createdAt, boolean needsRevalidation) {
+            this.location = location;
+            this.worldName = location.getWorld().getName();
+            this.createdAt = createdAt;
+            this.validatedAt = createdAt;
+            this.needsRevalidation = needsRevalidation;
+        }
+
+        public Location getLocation() { return location; }
+        public String getWorldName() { return worldName; }
+        public long getCreatedAt() { return createdAt; }
+        public long getValidatedAt() { return validatedAt; }
+        public long getInhabitedTime() { return inhabitedTime; }
+        public boolean needsRevalidation() { return needsRevalidation; }
+        public boolean isValidating() { return validating; }
+
+        /**
+         * Expiry counts from the last validation; maintain() revalidates entries shortly before it
+         * (revalidate.refresh-before), so entries that stay safe live on.
+         */
+        public boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - validatedAt > ttlMillis;
+        }
+    }
+
+    private static class WorldPool {
+        private final ConcurrentLinkedDeque<PooledLocation> ready = new ConcurrentLinkedDeque<>();
+        private final ConcurrentLinkedDeque<PooledLocation> stale = new ConcurrentLinkedDeque<>(); // waiting for or under revalidation
+        private final AtomicInteger size = new AtomicInteger(); // ready + stale
+        private final AtomicBoolean refilling = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,275 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LocationPoolStore
+ *
+ * Keeps each world's location pool on disk so the pool is warm right after a restart.
+ *
+ * One append-only binary log per world (pool/<world>.dat in the data folder):
+ *   header:  int magic, byte version
+ *   records: byte op, double x, double y, double z [, long createdAt for ADD]
+ *
+ * Adds and removes are appended as they happen on a single writer thread, so the main thread never
+ * touches the disk. Replaying the log gives the current pool. Once the log holds far more records
+ * than live entries it is rewritten from the pool's current contents.
+ */
+public class LocationPoolStore {
+    private static final int MAGIC = 0x52545051; // "RTPQ"
+    private static final byte VERSION = 1;
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final int MIN_RECORDS_BEFORE_COMPACT = 64;
+
+    private final File folder;
+    private final Logger logger;
+    private final Function<String, List<LocationPool.PooledLocation>> snapshots;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "AdvancedRTPQueue-PoolStore");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, WorldLog> logs = new HashMap<>(); // writer thread only
+
+    /**
+     * @param snapshots current pool contents for a bukkit world name, used when a log is compacted
+     */
+    public LocationPoolStore(File dataFolder, Logger logger, Function<String, List<LocationPool.PooledLocation>> snapshots) {
+        this.folder = new File(dataFolder, "pool");
+        this.logger = logger;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Replay a world's log. Runs on the calling thread; used once per world at enable.
+     * A truncated or corrupt tail is ignored, everything read before it is kept.
+     */
+    public List<StoredLocation> load(String bukkitWorldName) {
+        File file = getFile(bukkitWorldName);
+        if (!file.isFile()) return Collections.emptyList();
+
+        Map<Long, StoredLocation> entries = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                logger.warning("Ignoring location pool file with unknown format: " + file.getName());
+                return Collections.emptyList();
+            }
+
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException end) {
+                    break;
+                }
+
+                double x = in.readDouble();
+                double y = in.readDouble();
+                double z = in.readDouble();
+                if (op == OP_ADD) {
+                    StoredLocation stored = new StoredLocation(x, y, z, in.readLong());
+                    entries.put(key(x, y, z), stored);
+                } else if (op == OP_REMOVE) {
+                    entries.remove(key(x, y, z));
+                } else {
+                    logger.warning("Corrupt record in " + file.getName() + ", keeping " + entries.size() + " entries read so far");
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            logger.warning("Truncated location pool file " + file.getName() + ", keeping " + entries.size() + " entries");
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read location pool file " + file.getName(), e);
+        }
+        return new ArrayList<>(entries.values());
+    }
+
+    public void appendAdd(String bukkitWorldName, double x, double y, double z, long createdAt) {
+        submit(() -> {
+            WorldLog log = openLog(bukkitWorldName);
+            log.out.writeByte(OP_ADD);
+            writeCoordinates(log.out, x, y, z);
+            log.out.writeLong(createdAt);
+            log.out.flush();
+            log.records++;
+            log.live++;
+            compactIfNeeded(bukkitWorldName, log);
+        });
+    }
+
+    public void appendRemove(String bukkitWorldName, double x, double y, double z) {
+        submit(() -> {
+            WorldLog log = openLog(bukkitWorldName);
+            log.out.writeByte(OP_REMOVE);
+            writeCoordinates(log.out, x, y, z);
+            log.out.flush();
+            log.records++;
+            log.live = Math.max(0, log.live - 1);
+            compactIfNeeded(bukkitWorldName, log);
+        });
+    }
+
+    /**
+     * Rewrite a world's log so it contains exactly the given entries.
+     */
+    public void rewrite(String bukkitWorldName, List<LocationPool.PooledLocation> entries) {
+        submit(() -> writeSnapshot(bukkitWorldName, entries));
+    }
+
+    /**
+     * Finish pending writes and close all logs. Blocks for a few seconds at most.
+     */
+    public void close() {
+        writer.execute(() -> {
+            for (WorldLog log : logs.values()) {
+                closeQuietly(log);
+            }
+            logs.clear();
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warning("Timed out writing the location pool to disk");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(IOTask task) {
+        if (writer.isShutdown()) return;
+        writer.execute(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to write location pool file", e);
+            }
+        });
+    }
+
+    private void compactIfNeeded(String bukkitWorldName, WorldLog log) throws IOException {
+        if (log.records > MIN_RECORDS_BEFORE_COMPACT && log.records > log.live * 4L) {
+            writeSnapshot(bukkitWorldName, snapshots.apply(bukkitWorldName));
+        }
+    }
+
+    private void writeSnapshot(String bukkitWorldName, List<LocationPool.PooledLocation> entries) throws IOException {
+        WorldLog old = logs.remove(bukkitWorldName);
+        if (old != null) closeQuietly(old);
+
+        ensureFolder();
+        File file = getFile(bukkitWorldName);
+        File temp = new File(folder, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            for (LocationPool.PooledLocation entry : entries) {
+                out.writeByte(OP_ADD);
+                writeCoordinates(out, entry.getLocation().getX(), entry.getLocation().getY(), entry.getLocation().getZ());
+                out.writeLong(entry.getCreatedAt());
+            }
+        }
+
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not replace " + file.getName());
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not rename " + temp.getName());
+        }
+
+        WorldLog log = openLog(bukkitWorldName);
+        log.records = entries.size();
+        log.live = entries.size();
+    }
+
+    private WorldLog openLog(String bukkitWorldName) throws IOException {
+        WorldLog log = logs.get(bukkitWorldName);
+        if (log != null) return log;
+
+        ensureFolder();
+        File file = getFile(bukkitWorldName);
+        boolean fresh = !file.isFile() || file.length() == 0;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        if (fresh) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.flush();
+        }
+
+        log = new WorldLog(out);
+        logs.put(bukkitWorldName, log);
+        return log;
+    }
+
+    private void ensureFolder() throws IOException {
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder.getPath());
+        }
+    }
+
+    private File getFile(String bukkitWorldName) {
+        return new File(folder, bukkitWorldName.replaceAll("[^A-Za-z0-9_.-]", "_") + ".dat");
+    }
+
+    private static void writeCoordinates(DataOutputStream out, double x, double y, double z) throws IOException {
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(z);
+    }
+
+    private static long key(double x, double y, double z) {
+        long bx = (long) Math.floor(x) & 0x3FFFFFF;
+        long by = (long) Math.floor(y) & 0xFFF;
+        long bz = (long) Math.floor(z) & 0x3FFFFFF;
+        return bx << 38 | bz << 12 | by;
+    }
+
+    private static void closeQuietly(WorldLog log) {
+        try {
+            log.out.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * A location read back from disk; the world is implied by the file.
+     */
+    public static class StoredLocation {
+        private final double x, y, z;
+        private final long createdAt;
+
+        public StoredLocation(double x, double y, double z, long createdAt) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.createdAt = createdAt;
+        }
+
+        public double getX() { return x; }
+        public double getY() { return y; }
+        public double getZ() { return z; }
+        public long getCreatedAt() { return createdAt; }
+    }
+
+    private static class WorldLog {
+        private final DataOutputStream out;
+        private int records;
+        private int live;
+
+        private WorldLog(DataOutputStream out) {
+            this.out = out;
+        }
+    }
+
+    private interface IOTask {
+        void run() throws IOException;
+    }
+}
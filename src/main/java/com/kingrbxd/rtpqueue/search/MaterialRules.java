@@ -0,0 +1,103 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * MaterialRules
+ *
+ * Material classification used by the safety scan, compiled once from teleport.unsafe-blocks when the
+ * config is loaded or reloaded. Each lookup is a single array read indexed by Material.ordinal(),
+ * so the scan loops never touch the config or allocate Strings.
+ *
+ * Instances are immutable and safe to share with worker threads.
+ */
+public final class MaterialRules {
+    private static final byte SOLID = 1;
+    private static final byte PASSABLE = 1 << 1;   // air, cave air, void air
+    private static final byte UNSAFE = 1 << 2;     // never stand on it
+    private static final byte DANGEROUS = 1 << 3;  // never stand next to it
+
+    /** Always treated as unsafe ground, whatever the config says. */
+    private static final Set<Material> BUILT_IN_UNSAFE = EnumSet.of(
+            Material.LAVA,
+            Material.MAGMA_BLOCK,
+            Material.FIRE,
+            Material.SOUL_FIRE,
+            Material.CAMPFIRE,
+            Material.SOUL_CAMPFIRE,
+            Material.CACTUS
+    );
+
+    private static final Set<Material> DANGEROUS_NEIGHBOURS = EnumSet.of(
+            Material.LAVA,
+            Material.FIRE,
+            Material.SOUL_FIRE
+    );
+
+    private final byte[] flags;
+    private final List<String> unknownNames;
+
+    private MaterialRules(byte[] flags, List<String> unknownNames) {
+        this.flags = flags;
+        this.unknownNames = unknownNames;
+    }
+
+    /**
+     * Compile the lookup table from the configured unsafe block names.
+     */
+    public static MaterialRules compile(List<String> unsafeBlockNames) {
+        Material[] materials = Material.values();
+        byte[] flags = new byte[materials.length];
+
+        for (Material material : materials) {
+            byte f = 0;
+            if (material.isSolid()) f |= SOLID;
+            if (material.isAir()) f |= PASSABLE;
+            if (BUILT_IN_UNSAFE.contains(material)) f |= UNSAFE;
+            if (DANGEROUS_NEIGHBOURS.contains(material)) f |= DANGEROUS;
+            flags[material.ordinal()] = f;
+        }
+
+        List<String> unknown = new ArrayList<>();
+        if (unsafeBlockNames != null) {
+            for (String name : unsafeBlockNames) {
+                Material material = name != null ? Material.matchMaterial(name.trim()) : null;
+                if (material == null) {
+                    unknown.add(name);
+                    continue;
+                }
+                flags[material.ordinal()] |= UNSAFE;
+            }
+        }
+
+        return new MaterialRules(flags, unknown);
+    }
+
+    public boolean isSolid(Material material) {
+        return (flags[material.ordinal()] & SOLID) != 0;
+    }
+
+    public boolean isPassable(Material material) {
+        return (flags[material.ordinal()] & PASSABLE) != 0;
+    }
+
+    public boolean isUnsafe(Material material) {
+        return (flags[material.ordinal()] & UNSAFE) != 0;
+    }
+
+    public boolean isDangerous(Material material) {
+        return (flags[material.ordinal()] & DANGEROUS) != 0;
+    }
+
+    /**
+     * Configured names that did not match any material.
+     */
+    public List<String> getUnknownNames() {
+        return unknownNames;
+    }
+}
@@ -0,0 +1,183 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import com.kingrbxd.rtpqueue.handlers.ClaimProtectionHandler;
+import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import com.kingrbxd.rtpqueue.protection.ClaimVerdict;
+import io.papermc.lib.PaperLib;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * PregenJob
+ *
+ * Generates (or loads) every chunk inside a world's RTP bounds in the background and feeds the safe
+ * columns it finds into the location pool, so teleports land in terrain that already exists.
+ *
+ * - Chunks are visited in region order (all 32x32 chunks of one region file, then the next region),
+ *   which keeps generation and disk writes local to one region file at a time
+ * - Progress is a single index into that order (PregenProgress), so the job can be stopped and
+ *   resumed anywhere; the saved index never skips a chunk whose load had not completed
+ * - Throttled by its own TickBudget (teleport.pregen): a few chunk loads in flight, a few new chunks
+ *   per tick, and nothing at all while the server's MSPT is above pause-above-mspt
+ * - Regions and chunks the claim integrations report as fully claimed are skipped without loading
+ *   anything, since no spot in them could be used
+ * - Yields completely while a teleport session is waiting on a search
+ *
+ * Main thread only; started and persisted by PregenManager.
+ */
+public class PregenJob extends BukkitRunnable {
+    private static final int MAX_SKIPS_PER_TICK = 4096; // slots outside the bounds passed over per tick
+
+    private final AdvancedRTPQueue plugin;
+    private final WorldManager.WorldSettings worldSettings;
+    private final PregenManager manager;
+    private final TickBudget budget = new TickBudget();
+    private final PregenProgress progress;
+    private final int maxInFlight;
+    private long chunks = 0;
+    private long found = 0;
+    private boolean finished = false;
+
+    public PregenJob(AdvancedRTPQueue plugin, PregenManager manager, WorldManager.WorldSettings worldSettings, long startIndex) {
+        this.plugin = plugin;
+        this.manager = manager;
+        this.worldSettings = worldSettings;
+
+        this.progress = new PregenProgress(
+                Math.min(worldSettings.getMinX(), worldSettings.getMaxX()) >> 4,
+                Math.max(worldSettings.getMinX(), worldSettings.getMaxX()) >> 4,
+                Math.min(worldSettings.getMinZ(), worldSettings.getMaxZ()) >> 4,
+                Math.max(worldSettings.getMinZ(), worldSettings.getMaxZ()) >> 4,
+                startIndex
+        );
+
+        this.maxInFlight = Math.max(1, plugin.getConfigManager().getInt("teleport.pregen.max-in-flight", 2));
+        budget.configure(
+                plugin.getConfigManager().getDouble("teleport.pregen.max-ms-per-tick", 1.0),
+                plugin.getConfigManager().getDouble("teleport.pregen.pause-above-mspt", 40.0),
+                0,
+                Math.max(1, plugin.getConfigManager().getInt("teleport.pregen.chunks-per-tick", 1))
+        );
+    }
+
+    @Override
+    public void run() {
+        if (finished) return;
+
+        World world = worldSettings.getBukkitWorld();
+        budget.beginTick(System.nanoTime());
+        if (world != null && !plugin.getLocationFinder().hasWaitingRequests()) {
+            int started = 0;
+            int skipped = 0;
+            while (progress.getInFlight() < maxInFlight && progress.hasNext() && budget.allows(started, System.nanoTime())) {
+                long index = progress.next();
+                int chunkX = progress.chunkX(index);
+                int chunkZ = progress.chunkZ(index);
+
+                if (progress.isRegionStart(index)
+                        && isClaimed(world, chunkX << 4, chunkZ << 4, (chunkX << 4) + 511, (chunkZ << 4) + 511)) {
+                    progress.skipRegion(index);
+                    continue;
+                }
+                if (!progress.inBounds(chunkX, chunkZ)
+                        || isClaimed(world, chunkX << 4, chunkZ << 4, (chunkX << 4) + 15, (chunkZ << 4) + 15)) {
+                    if (++skipped >= MAX_SKIPS_PER_TICK) break;
+                    continue;
+                }
+
+                started++;
+                loadChunk(world, index, chunkX, chunkZ);
+            }
+        }
+        budget.endTick(System.nanoTime());
+
+        if (progress.isDone()) {
+            finished = true;
+            cancel();
+            manager.onFinished(this);
+        }
+    }
+
+    private void loadChunk(World world, long index, int chunkX, int chunkZ) {
+        progress.started(index);
+        PaperLib.getChunkAtAsync(world, chunkX, chunkZ, true).whenComplete((chunk, error) -> {
+            progress.completed(index);
+            chunks++;
+            if (error != null || chunk == null || isCancelled() || !plugin.isEnabled()) {
+                if (error != null && plugin.getConfigManager().getBoolean("plugin.debug")) {
+                    plugin.getLogger().warning("Pregen failed to load chunk " + chunkX + "," + chunkZ + " in " + world.getName()
+                            + ": " + error.getMessage());
+                }
+                return;
+            }
+
+            long start = System.nanoTime();
+            plugin.getLocationFinder().getHarvester().harvestChunk(chunk, worldSettings).thenAccept(spots -> {
+                for (Location spot : spots) {
+                    if (plugin.getLocationPool() != null && plugin.getLocationPool().offer(spot)) {
+                        found++;
+                    }
+                }
+            });
+            budget.charge(System.nanoTime() - start);
+        });
+    }
+
+    /**
+     * Whether the whole block rectangle is claimed; chunk-sized rectangles use the cached chunk verdict
+     */
+    private boolean isClaimed(World world, int minX, int minZ, int maxX, int maxZ) {
+        ClaimProtectionHandler handler = plugin.getClaimProtectionHandler();
+        if (handler == null || !plugin.getConfigManager().getBoolean("claim-protection.enabled")) return false;
+
+        long start = System.nanoTime();
+        boolean claimed = maxX - minX == 15 && maxZ - minZ == 15
+                ? handler.getChunkVerdict(world, minX >> 4, minZ >> 4) == ClaimVerdict.CLAIMED
+                : handler.getRegionVerdict(world, minX, minZ, maxX, maxZ) == ClaimVerdict.CLAIMED;
+        budget.charge(System.nanoTime() - start);
+        return claimed;
+    }
+
+    public WorldManager.WorldSettings getWorldSettings() {
+        return worldSettings;
+    }
+
+    /**
+     * Index to resume from: the lowest chunk still in flight, or the next one to start.
+     */
+    public long getResumeIndex() {
+        return progress.getResumeIndex();
+    }
+
+    public long getTotal() {
+        return progress.getTotal();
+    }
+
+    public double getProgress() {
+        return getTotal() == 0 ? 1.0 : (double) getResumeIndex() / getTotal();
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getFound() {
+        return found;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Identifies the bounds this job walks; saved progress is only resumed for the same bounds.
+     */
+    public static String getBoundsKey(WorldManager.WorldSettings worldSettings) {
+        return (Math.min(worldSettings.getMinX(), worldSettings.getMaxX()) >> 4) + ","
+                + (Math.max(worldSettings.getMinX(), worldSettings.getMaxX()) >> 4) + ","
+                + (Math.min(worldSettings.getMinZ(), worldSettings.getMaxZ()) >> 4) + ","
+                + (Math.max(worldSettings.getMinZ(), worldSettings.getMaxZ()) >> 4);
+    }
+}
@@ -0,0 +1,185 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PregenManager
+ *
+ * Starts, stops and persists the /rtpqueue pregen jobs (PregenJob), at most one per configured world.
+ *
+ * Progress is kept in pregen.yml in the data folder:
+ *   jobs.<world key>.bounds      chunk bounds the index refers to
+ *   jobs.<world key>.next-index  where to resume in the job's region order
+ *   jobs.<world key>.running     whether the job was running when it was saved
+ *
+ * It is saved every teleport.pregen.save-interval seconds while a job runs, and on stop, finish and
+ * shutdown. Jobs that were running at shutdown resume on enable; saved progress is discarded if the
+ * world's bounds changed since.
+ *
+ * Main thread only.
+ */
+public class PregenManager {
+    private final AdvancedRTPQueue plugin;
+    private final File file;
+    private final YamlConfiguration saved;
+    private final Map<String, PregenJob> jobs = new HashMap<>(); // key: world key
+    private BukkitTask saveTask;
+
+    public PregenManager(AdvancedRTPQueue plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "pregen.yml");
+        this.saved = YamlConfiguration.loadConfiguration(file);
+    }
+
+    /**
+     * Start or resume the job for a world. Returns false if it is already running.
+     */
+    public boolean start(WorldManager.WorldSettings worldSettings) {
+        String worldKey = worldSettings.getWorldKey();
+        if (jobs.containsKey(worldKey)) {
+            return false;
+        }
+
+        PregenJob job = new PregenJob(plugin, this, worldSettings, getSavedIndex(worldSettings));
+        if (job.getResumeIndex() >= job.getTotal()) {
+            // the last run completed: go over the bounds again
+            job = new PregenJob(plugin, this, worldSettings, 0L);
+        }
+        jobs.put(worldKey, job);
+        job.runTaskTimer(plugin, 1L, 1L);
+        startSaveTask();
+        save();
+
+        plugin.getLogger().info("Pregeneration of " + worldKey + " started at "
+                + formatPercent(job.getProgress()) + " (" + job.getTotal() + " chunk slots)");
+        return true;
+    }
+
+    /**
+     * Stop a world's job and keep its progress. Returns false if it was not running.
+     */
+    public boolean stop(String worldKey) {
+        PregenJob job = jobs.remove(worldKey);
+        if (job == null) {
+            return false;
+        }
+
+        job.cancel();
+        record(job, false);
+        save();
+        stopSaveTaskIfIdle();
+        plugin.getLogger().info("Pregeneration of " + worldKey + " stopped at " + formatPercent(job.getProgress()));
+        return true;
+    }
+
+    public PregenJob getJob(String worldKey) {
+        return jobs.get(worldKey);
+    }
+
+    public Collection<PregenJob> getJobs() {
+        return jobs.values();
+    }
+
+    /**
+     * Resume every job that was running when the plugin was last disabled.
+     */
+    public void resumeJobs() {
+        ConfigurationSection section = saved.getConfigurationSection("jobs");
+        if (section == null) return;
+
+        for (String worldKey : section.getKeys(false)) {
+            if (!section.getBoolean(worldKey + ".running")) continue;
+
+            WorldManager.WorldSettings worldSettings = plugin.getWorldManager().getWorldSettings(worldKey);
+            if (worldSettings == null) {
+                plugin.getLogger().warning("Not resuming pregeneration of unknown world " + worldKey);
+                continue;
+            }
+            start(worldSettings);
+        }
+    }
+
+    void onFinished(PregenJob job) {
+        String worldKey = job.getWorldSettings().getWorldKey();
+        jobs.remove(worldKey, job);
+        record(job, false);
+        save();
+        stopSaveTaskIfIdle();
+        plugin.getLogger().info("Pregeneration of " + worldKey + " finished: " + job.getChunks() + " chunks, "
+                + job.getFound() + " locations added to the pool");
+    }
+
+    /**
+     * Cancel all jobs and save their progress; they resume on the next enable.
+     */
+    public void shutdown() {
+        for (PregenJob job : jobs.values()) {
+            job.cancel();
+        }
+        save();
+        jobs.clear();
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+    }
+
+    public void save() {
+        for (PregenJob job : jobs.values()) {
+            record(job, true);
+        }
+
+        try {
+            saved.save(file);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void record(PregenJob job, boolean running) {
+        String path = "jobs." + job.getWorldSettings().getWorldKey();
+        saved.set(path + ".bounds", PregenJob.getBoundsKey(job.getWorldSettings()));
+        saved.set(path + ".next-index", job.getResumeIndex());
+        saved.set(path + ".total", job.getTotal());
+        saved.set(path + ".running", running);
+    }
+
+    private long getSavedIndex(WorldManager.WorldSettings worldSettings) {
+        ConfigurationSection section = saved.getConfigurationSection("jobs." + worldSettings.getWorldKey());
+        if (section == null) return 0L;
+
+        if (!PregenJob.getBoundsKey(worldSettings).equals(section.getString("bounds"))) {
+            plugin.getLogger().info("Bounds of " + worldSettings.getWorldKey() + " changed, pregeneration starts over");
+            return 0L;
+        }
+        return section.getLong("next-index");
+    }
+
+    private void startSaveTask() {
+        if (saveTask != null) return;
+
+        long interval = Math.max(1, plugin.getConfigManager().getInt("teleport.pregen.save-interval", 30)) * 20L;
+        saveTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::save, interval, interval);
+    }
+
+    private void stopSaveTaskIfIdle() {
+        if (jobs.isEmpty() && saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+    }
+
+    public static String formatPercent(double progress) {
+        return String.format("%.1f%%", progress * 100.0);
+    }
+}
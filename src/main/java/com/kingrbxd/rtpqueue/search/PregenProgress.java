@@ -0,0 +1,112 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.PriorityQueue;
+
+/**
+ * PregenProgress
+ *
+ * The walk order and resume point of a PregenJob.
+ *
+ * Chunk slots are numbered in region order: all 32x32 chunks of one region file, then the next
+ * region, row by row over the regions that intersect the chunk bounds. Slots outside the bounds are
+ * part of the numbering but never loaded. Loads complete out of order, so the resume index is the
+ * lowest slot still in flight (a min-heap), never past a chunk that has not finished.
+ *
+ * Main thread only.
+ */
+final class PregenProgress {
+    static final int REGION_CHUNKS = 32;
+
+    private final int minChunkX, maxChunkX, minChunkZ, maxChunkZ;
+    private final int minRegionX, minRegionZ, regionsX;
+    private final long total;
+    private final PriorityQueue<Long> inFlight = new PriorityQueue<>(); // slots of chunk loads not completed yet
+    private long nextIndex;
+
+    PregenProgress(int minChunkX, int maxChunkX, int minChunkZ, int maxChunkZ, long startIndex) {
+        this.minChunkX = minChunkX;
+        this.maxChunkX = maxChunkX;
+        this.minChunkZ = minChunkZ;
+        this.maxChunkZ = maxChunkZ;
+        this.minRegionX = minChunkX >> 5;
+        this.minRegionZ = minChunkZ >> 5;
+        this.regionsX = (maxChunkX >> 5) - minRegionX + 1;
+        int regionsZ = (maxChunkZ >> 5) - minRegionZ + 1;
+        this.total = (long) regionsX * regionsZ * REGION_CHUNKS * REGION_CHUNKS;
+        this.nextIndex = Math.max(0, Math.min(total, startIndex));
+    }
+
+    boolean hasNext() {
+        return nextIndex < total;
+    }
+
+    /**
+     * Claim the next slot. The caller checks it with inBounds before loading it.
+     */
+    long next() {
+        return nextIndex++;
+    }
+
+    int chunkX(long index) {
+        long region = index / (REGION_CHUNKS * REGION_CHUNKS);
+        int local = (int) (index % (REGION_CHUNKS * REGION_CHUNKS));
+        return (minRegionX + (int) (region % regionsX)) * REGION_CHUNKS + local % REGION_CHUNKS;
+    }
+
+    int chunkZ(long index) {
+        long region = index / (REGION_CHUNKS * REGION_CHUNKS);
+        int local = (int) (index % (REGION_CHUNKS * REGION_CHUNKS));
+        return (minRegionZ + (int) (region / regionsX)) * REGION_CHUNKS + local / REGION_CHUNKS;
+    }
+
+    /**
+     * Whether the slot is the first chunk of its region.
+     */
+    boolean isRegionStart(long index) {
+        return index % (REGION_CHUNKS * REGION_CHUNKS) == 0;
+    }
+
+    /**
+     * Pass over the rest of the slot's region, e.g. when the whole region is claimed.
+     */
+    void skipRegion(long index) {
+        long next = (index / (REGION_CHUNKS * REGION_CHUNKS) + 1) * REGION_CHUNKS * REGION_CHUNKS;
+        nextIndex = Math.max(nextIndex, Math.min(total, next));
+    }
+
+    boolean inBounds(int chunkX, int chunkZ) {
+        return chunkX >= minChunkX && chunkX <= maxChunkX && chunkZ >= minChunkZ && chunkZ <= maxChunkZ;
+    }
+
+    void started(long index) {
+        inFlight.add(index);
+    }
+
+    void completed(long index) {
+        inFlight.remove(index);
+    }
+
+    int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Every slot was claimed and every load has completed.
+     */
+    boolean isDone() {
+        return nextIndex >= total && inFlight.isEmpty();
+    }
+
+    /**
+     * Slot to resume from: the lowest chunk still in flight, or the next one to start. Chunks after it
+     * that already completed are visited again, which only costs a cheap load.
+     */
+    long getResumeIndex() {
+        Long lowest = inFlight.peek();
+        return lowest != null ? lowest : nextIndex;
+    }
+
+    long getTotal() {
+        return total;
+    }
+}
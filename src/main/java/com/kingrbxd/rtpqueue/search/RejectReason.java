@@ -0,0 +1,40 @@
+package com.kingrbxd.rtpqueue.search;
+
+/**
+ * Why a candidate location was rejected by the location search.
+ *
+ * Regional reasons usually hold for the surrounding area as well (blocked biome, claimed land,
+ * a predicted ocean surface), so they are remembered by RejectionMemory. The others are specific to
+ * a single column: a column without a safe Y says little about the one next to it.
+ */
+public enum RejectReason {
+    BLOCKED_BIOME("blocked biome", true),
+    PREDICTED_FLUID("predicted water or lava surface", true),
+    PREDICTED_OUT_OF_RANGE("predicted surface outside Y range", true),
+    NO_SAFE_Y("no safe surface in column", false),
+    NO_SOLID_GROUND("no solid ground", false),
+    FEET_NOT_AIR("feet not air", false),
+    HEAD_NOT_AIR("head not air", false),
+    UNSAFE_GROUND("unsafe ground block", false),
+    DANGEROUS_SURROUNDINGS("dangerous surroundings", false),
+    CLAIMED("claimed area", true),
+    CHUNK_NOT_LOADED("unloaded chunk", false),
+    TOO_CLOSE("too close to a recent destination", false),
+    CHUNK_NOT_GENERATED("chunk not generated", false);
+
+    private final String description;
+    private final boolean regional;
+
+    RejectReason(String description, boolean regional) {
+        this.description = description;
+        this.regional = regional;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isRegional() {
+        return regional;
+    }
+}
@@ -0,0 +1,101 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * RejectionMemory
+ *
+ * Remembers recently rejected areas of one world's search bounds so the sampler can steer away from
+ * them instead of re-sampling the same ocean, lava lake or claimed town on every search.
+ *
+ * The bounds are split into square cells (a power of two, at least one chunk wide, grown until the grid
+ * fits in MAX_CELLS). Each cell is one int packing the expiry time in seconds and the rejection reason,
+ * so a lookup is one array read and the whole structure is a few hundred KB at most.
+ *
+ * Safe to use from worker threads.
+ */
+public class RejectionMemory {
+    private static final int MAX_CELLS = 1 << 16;
+    private static final int REASON_BITS = 5;
+    private static final int REASON_MASK = (1 << REASON_BITS) - 1;
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private final int minX, maxX, minZ, maxZ;
+    private final int cellShift;
+    private final int cellsX, cellsZ;
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicIntegerArray cells; // 0 = nothing remembered
+
+    public RejectionMemory(int minX, int maxX, int minZ, int maxZ, int cellSize) {
+        this.minX = Math.min(minX, maxX);
+        this.maxX = Math.max(minX, maxX);
+        this.minZ = Math.min(minZ, maxZ);
+        this.maxZ = Math.max(minZ, maxZ);
+
+        int shift = 4;
+        while ((1 << shift) < cellSize && shift < 30) shift++;
+        long spanX = (long) this.maxX - this.minX;
+        long spanZ = (long) this.maxZ - this.minZ;
+        while (cellCount(spanX, shift) * cellCount(spanZ, shift) > MAX_CELLS) shift++;
+
+        this.cellShift = shift;
+        this.cellsX = (int) cellCount(spanX, shift);
+        this.cellsZ = (int) cellCount(spanZ, shift);
+        this.cells = new AtomicIntegerArray(cellsX * cellsZ);
+    }
+
+    /**
+     * Remember a regional rejection at x/z for expiryMillis. Column-specific reasons are ignored.
+     */
+    public void remember(int x, int z, RejectReason reason, long expiryMillis) {
+        if (reason == null || !reason.isRegional()) return;
+
+        int index = indexOf(x, z);
+        if (index < 0) return;
+
+        long expiresAt = (System.currentTimeMillis() - epoch + expiryMillis) / 1000L + 1;
+        int packed = (int) Math.min(Integer.MAX_VALUE >> REASON_BITS, expiresAt) << REASON_BITS | reason.ordinal();
+        cells.set(index, packed);
+    }
+
+    /**
+     * The reason x/z was rejected recently, or null if its cell is not remembered or has expired.
+     */
+    public RejectReason recall(int x, int z) {
+        int index = indexOf(x, z);
+        if (index < 0) return null;
+
+        int packed = cells.get(index);
+        if (packed == 0) return null;
+
+        long now = (System.currentTimeMillis() - epoch) / 1000L;
+        if ((packed >>> REASON_BITS) <= now) {
+            cells.compareAndSet(index, packed, 0);
+            return null;
+        }
+        return REASONS[packed & REASON_MASK];
+    }
+
+    /**
+     * Whether this memory was built for the given bounds.
+     */
+    public boolean covers(int minX, int maxX, int minZ, int maxZ) {
+        return this.minX == Math.min(minX, maxX) && this.maxX == Math.max(minX, maxX) &&
+                this.minZ == Math.min(minZ, maxZ) && this.maxZ == Math.max(minZ, maxZ);
+    }
+
+    public int getCellSize() {
+        return 1 << cellShift;
+    }
+
+    private int indexOf(int x, int z) {
+        if (x < minX || x > maxX || z < minZ || z > maxZ) return -1;
+        int cx = (int) (((long) x - minX) >> cellShift);
+        int cz = (int) (((long) z - minZ) >> cellShift);
+        return cz * cellsX + cx;
+    }
+
+    private static long cellCount(long span, int shift) {
+        return (span >> shift) + 1;
+    }
+}
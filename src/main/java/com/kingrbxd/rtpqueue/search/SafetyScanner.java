@@ -0,0 +1,280 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SafetyScanner
+ *
+ * Runs the teleport safety checks against a ChunkSnapshot instead of the live world.
+ * The snapshot is taken once per candidate chunk on the main thread; everything here only reads
+ * the snapshot and the settings captured at construction, so it is safe to use from worker threads.
+ *
+ * With cavern bands (SearchStrategy.CAVERN) the landing Y is the first open floor found bottom-up in
+ * each band instead of the surface, and candidate floors must already be clear of lava and fire.
+ *
+ * Columns are chunk-local (0-15). The search picks columns between 1 and 14, which keeps the whole
+ * 3x3 neighbourhood inside the chunk. Checks of edge columns (0 or 15) need the snapshots of the
+ * neighbouring chunks (see needsNeighbours); a neighbour block whose chunk was not supplied counts as
+ * dangerous, so a missing snapshot never passes lava or fire across the border.
+ */
+public class SafetyScanner {
+    public static final int NO_SAFE_Y = Integer.MIN_VALUE;
+
+    private final int worldMinY;
+    private final int worldMaxY; // exclusive
+    private final int minY;
+    private final int maxY;
+    private final MaterialRules rules;
+    private final int[] cavernBands; // {min, max, ...} clamped to minY..maxY, or null for surface scans
+
+    /**
+     * Capture the settings for a scan. Call on the main thread.
+     * minY/maxY are the world's configured range and are clamped to the world's build height.
+     */
+    public SafetyScanner(World world, int minY, int maxY, MaterialRules rules) {
+        this(world, minY, maxY, rules, null);
+    }
+
+    /**
+     * Scanner for the cavern strategy: findSafeY looks for floors inside the given Y bands,
+     * {min, max, min, max, ...}, tried in order. Bands are clamped to minY..maxY.
+     */
+    public SafetyScanner(World world, int minY, int maxY, MaterialRules rules, int[] cavernBands) {
+        this.worldMinY = world.getMinHeight();
+        this.worldMaxY = world.getMaxHeight();
+        this.minY = Math.max(worldMinY, minY);
+        this.maxY = Math.min(worldMaxY - 1, maxY);
+        this.rules = rules;
+
+        if (cavernBands != null) {
+            this.cavernBands = new int[cavernBands.length - cavernBands.length % 2];
+            for (int i = 0; i < this.cavernBands.length; i += 2) {
+                this.cavernBands[i] = Math.max(this.minY, cavernBands[i]);
+                this.cavernBands[i + 1] = Math.min(this.maxY, cavernBands[i + 1]);
+            }
+        } else {
+            this.cavernBands = null;
+        }
+    }
+
+    /**
+     * Find the Y of a safe ground block in a column, or NO_SAFE_Y.
+     *
+     * surfaceY and topY are the column's MOTION_BLOCKING_NO_LEAVES and WORLD_SURFACE heightmap values,
+     * read on the main thread when the chunk was ready. Most columns are answered straight from the
+     * heightmap with three block reads; the column is only scanned when that answer is unusable.
+     */
+    public int findSafeY(ChunkSnapshot snapshot, int localX, int localZ, int surfaceY, int topY) {
+        if (cavernBands != null) {
+            return findCavernFloor(snapshot, localX, localZ);
+        }
+
+        // surface below the configured range: nothing in range can be standable ground
+        if (surfaceY < minY) {
+            return NO_SAFE_Y;
+        }
+
+        if (surfaceY <= maxY) {
+            if (isStandable(snapshot, localX, surfaceY, localZ)) {
+                return surfaceY;
+            }
+
+            // fluid at the surface (ocean, river, lava lake): the rest of the column is submerged
+            if (!rules.isSolid(getType(snapshot, localX, surfaceY, localZ))) {
+                return NO_SAFE_Y;
+            }
+        }
+
+        // heightmap answer unusable (above max-y, blocked or unsafe ground): scan down within range
+        int startY = Math.min(maxY, Math.min(surfaceY, topY) - 1);
+        for (int y = startY; y >= minY; y--) {
+            if (isStandable(snapshot, localX, y, localZ)) {
+                return y;
+            }
+        }
+
+        return NO_SAFE_Y;
+    }
+
+    /**
+     * First floor, bottom-up per band, with room to stand and no lava or fire around it.
+     * The heightmaps are ignored: under a bedrock roof they only describe the roof.
+     */
+    private int findCavernFloor(ChunkSnapshot snapshot, int localX, int localZ) {
+        for (int i = 0; i < cavernBands.length; i += 2) {
+            for (int y = cavernBands[i]; y <= cavernBands[i + 1]; y++) {
+                if (isStandable(snapshot, localX, y, localZ) && !hasUnsafeSurroundings(snapshot, localX, y + 1, localZ, null)) {
+                    return y;
+                }
+            }
+        }
+        return NO_SAFE_Y;
+    }
+
+    /**
+     * Detailed safety check for a player standing with their feet at y.
+     *
+     * @return null if the location is safe, otherwise the reason it is not
+     */
+    public RejectReason check(ChunkSnapshot snapshot, int localX, int y, int localZ) {
+        return check(snapshot, localX, y, localZ, null);
+    }
+
+    /**
+     * check() for any column, edge columns included. neighbours is a 3x3 grid of chunk snapshots
+     * indexed by neighbourIndex(dx, dz) (the centre is not read); only the chunks touched by the
+     * column's neighbourhood are needed, missing ones count as dangerous.
+     */
+    public RejectReason check(ChunkSnapshot snapshot, int localX, int y, int localZ, ChunkSnapshot[] neighbours) {
+        Material ground = getType(snapshot, localX, y - 1, localZ);
+        Material feet = getType(snapshot, localX, y, localZ);
+        Material head = getType(snapshot, localX, y + 1, localZ);
+
+        if (!rules.isSolid(ground)) return RejectReason.NO_SOLID_GROUND;
+        if (!rules.isPassable(feet)) return RejectReason.FEET_NOT_AIR;
+        if (!rules.isPassable(head)) return RejectReason.HEAD_NOT_AIR;
+        if (rules.isUnsafe(ground)) return RejectReason.UNSAFE_GROUND;
+        if (hasUnsafeSurroundings(snapshot, localX, y, localZ, neighbours)) return RejectReason.DANGEROUS_SURROUNDINGS;
+
+        return null;
+    }
+
+    /**
+     * Whether the 3x3 neighbourhood of a column reaches into other chunks.
+     */
+    public static boolean needsNeighbours(int localX, int localZ) {
+        return localX <= 0 || localX >= 15 || localZ <= 0 || localZ >= 15;
+    }
+
+    /**
+     * Slot of the chunk at offset dx/dz (-1..1) in a neighbours grid.
+     */
+    public static int neighbourIndex(int dx, int dz) {
+        return (dx + 1) * 3 + (dz + 1);
+    }
+
+    /**
+     * Find up to count extra landing spots around an anchor in the same snapshot, for group landings.
+     * Columns are tried nearest first; each spot passes the full check, stays within maxDy of the
+     * anchor's feet Y and is at least minSpacing blocks from the anchor and every other spot.
+     *
+     * @return spots as {localX, feetY, localZ}
+     */
+    public List<int[]> findNearbySpots(ChunkSnapshot snapshot, int anchorX, int anchorFeetY, int anchorZ,
+                                       int radius, int minSpacing, int maxDy, int count) {
+        List<int[]> spots = new ArrayList<>();
+        if (count <= 0) return spots;
+
+        int spacingSq = minSpacing * minSpacing;
+        List<int[]> taken = new ArrayList<>();
+        taken.add(new int[]{anchorX, anchorFeetY, anchorZ});
+
+        for (int ring = 1; ring <= radius && spots.size() < count; ring++) {
+            for (int dx = -ring; dx <= ring && spots.size() < count; dx++) {
+                for (int dz = -ring; dz <= ring && spots.size() < count; dz++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != ring) continue; // ring edge only
+                    if (dx * dx + dz * dz > radius * radius) continue;
+
+                    int x = anchorX + dx;
+                    int z = anchorZ + dz;
+                    if (x < 1 || x > 14 || z < 1 || z > 14) continue; // keep the neighbourhood inside the snapshot
+                    if (isTooClose(taken, x, z, spacingSq)) continue;
+
+                    int feetY = findFeetNear(snapshot, x, anchorFeetY, z, maxDy);
+                    if (feetY == NO_SAFE_Y) continue;
+
+                    int[] spot = {x, feetY, z};
+                    spots.add(spot);
+                    taken.add(spot);
+                }
+            }
+        }
+        return spots;
+    }
+
+    /**
+     * Scan several columns of one snapshot, to harvest extra spots from a chunk that was loaded anyway.
+     * columns holds {localX, localZ, surfaceY, topY} for each column, heightmaps read like for findSafeY.
+     *
+     * @return spots that pass the full check, as {localX, feetY, localZ}
+     */
+    public List<int[]> findSafeColumns(ChunkSnapshot snapshot, int[] columns) {
+        List<int[]> spots = new ArrayList<>();
+        for (int i = 0; i + 3 < columns.length; i += 4) {
+            int x = columns[i];
+            int z = columns[i + 1];
+            int groundY = findSafeY(snapshot, x, z, columns[i + 2], columns[i + 3]);
+            if (groundY != NO_SAFE_Y && check(snapshot, x, groundY + 1, z) == null) {
+                spots.add(new int[]{x, groundY + 1, z});
+            }
+        }
+        return spots;
+    }
+
+    private int findFeetNear(ChunkSnapshot snapshot, int x, int anchorFeetY, int z, int maxDy) {
+        for (int offset = 0; offset <= maxDy * 2; offset++) {
+            // 0, +1, -1, +2, -2, ...
+            int dy = (offset & 1) == 1 ? (offset + 1) / 2 : -(offset / 2);
+            int feetY = anchorFeetY + dy;
+            if (feetY - 1 < worldMinY || feetY + 1 >= worldMaxY) continue;
+            if (check(snapshot, x, feetY, z) == null) {
+                return feetY;
+            }
+        }
+        return NO_SAFE_Y;
+    }
+
+    private static boolean isTooClose(List<int[]> taken, int x, int z, int spacingSq) {
+        for (int[] other : taken) {
+            int dx = other[0] - x;
+            int dz = other[2] - z;
+            if (dx * dx + dz * dz < spacingSq) return true;
+        }
+        return false;
+    }
+
+    private boolean isStandable(ChunkSnapshot snapshot, int localX, int groundY, int localZ) {
+        Material ground = getType(snapshot, localX, groundY, localZ);
+        return rules.isSolid(ground) &&
+                !rules.isUnsafe(ground) &&
+                rules.isPassable(getType(snapshot, localX, groundY + 1, localZ)) &&
+                rules.isPassable(getType(snapshot, localX, groundY + 2, localZ));
+    }
+
+    private boolean hasUnsafeSurroundings(ChunkSnapshot snapshot, int localX, int y, int localZ, ChunkSnapshot[] neighbours) {
+        for (int dx = -1; dx <= 1; dx++) {
+            int x = localX + dx;
+            int chunkDx = x < 0 ? -1 : x > 15 ? 1 : 0;
+            for (int dz = -1; dz <= 1; dz++) {
+                int z = localZ + dz;
+                int chunkDz = z < 0 ? -1 : z > 15 ? 1 : 0;
+
+                ChunkSnapshot source = snapshot;
+                if (chunkDx != 0 || chunkDz != 0) {
+                    source = neighbours != null ? neighbours[neighbourIndex(chunkDx, chunkDz)] : null;
+                    if (source == null) return true; // unknown blocks across the border are not assumed safe
+                }
+                for (int dy = -1; dy <= 2; dy++) {
+                    if (rules.isDangerous(getType(source, x & 15, y + dy, z & 15))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Block type from the snapshot; out-of-world heights read as air.
+     */
+    private Material getType(ChunkSnapshot snapshot, int localX, int y, int localZ) {
+        if (y < worldMinY) return Material.VOID_AIR;
+        if (y >= worldMaxY) return Material.AIR;
+        return snapshot.getBlockType(localX, y, localZ);
+    }
+}
@@ -0,0 +1,139 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SamplerStore
+ *
+ * Holds one CoordinateSampler per world (teleport.sampling.mode) and persists each sampler's
+ * position to samplers.yml, so a stratified or Halton sequence continues where it stopped instead
+ * of restarting at the same points after every restart.
+ *
+ * The shared samplers depend on every search before, so a search seed alone cannot replay them.
+ * Runs with a fixed or logged seed use createSeededSampler instead: a fresh sampler per search whose
+ * starting point is drawn from the search seed.
+ *
+ * Samplers are keyed by bukkit world name and are only used from the main thread.
+ */
+public class SamplerStore {
+    private final AdvancedRTPQueue plugin;
+    private final File file;
+    private final Map<String, CoordinateSampler> samplers = new ConcurrentHashMap<>();
+    private YamlConfiguration saved;
+    private String warnedMode;
+
+    public SamplerStore(AdvancedRTPQueue plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "samplers.yml");
+        this.saved = YamlConfiguration.loadConfiguration(file);
+    }
+
+    /**
+     * The sampler for a world, resumed from samplers.yml if it was saved with the configured mode.
+     * A new Halton sampler draws its offsets from worldSeed.
+     */
+    public CoordinateSampler getSampler(String bukkitWorldName, long worldSeed) {
+        String mode = getConfiguredMode();
+        CoordinateSampler sampler = samplers.get(bukkitWorldName);
+        if (sampler != null && sampler.getMode().equals(mode)) {
+            return sampler;
+        }
+
+        sampler = createSampler(mode, saved.getConfigurationSection("worlds." + bukkitWorldName), worldSeed);
+        samplers.put(bukkitWorldName, sampler);
+        return sampler;
+    }
+
+    /**
+     * A fresh sampler of the configured mode for a single search, with its start index (and Halton
+     * offsets) drawn from the search seed. Not stored or saved.
+     */
+    public CoordinateSampler createSeededSampler(long searchSeed) {
+        // decorrelated from the search's own SplittableRandom(searchSeed)
+        SplittableRandom random = new SplittableRandom(searchSeed ^ 0x9E3779B97F4A7C15L);
+        switch (getConfiguredMode()) {
+            case StratifiedSampler.MODE:
+                return new StratifiedSampler(random.nextInt(1 << 16), plugin.getConfigManager().getInt("teleport.sampling.strata", 16));
+            case HaltonSampler.MODE:
+                return new HaltonSampler(random.nextInt(1 << 20), random.nextDouble(), random.nextDouble());
+            default:
+                return new UniformSampler(0);
+        }
+    }
+
+    /**
+     * Write every sampler's position to samplers.yml. Called on reload and shutdown.
+     */
+    public void save() {
+        if (samplers.isEmpty()) return;
+
+        YamlConfiguration out = new YamlConfiguration();
+        for (Map.Entry<String, CoordinateSampler> entry : samplers.entrySet()) {
+            String path = "worlds." + entry.getKey();
+            CoordinateSampler sampler = entry.getValue();
+            out.set(path + ".mode", sampler.getMode());
+            out.set(path + ".index", sampler.getIndex());
+            if (sampler instanceof HaltonSampler) {
+                out.set(path + ".offset-u", ((HaltonSampler) sampler).getOffsetU());
+                out.set(path + ".offset-v", ((HaltonSampler) sampler).getOffsetV());
+            }
+        }
+
+        try {
+            out.save(file);
+            saved = out;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Save and forget the samplers so the next search picks up a changed mode.
+     */
+    public void reload() {
+        save();
+        samplers.clear();
+    }
+
+    private CoordinateSampler createSampler(String mode, ConfigurationSection state, long worldSeed) {
+        boolean resume = state != null && mode.equals(state.getString("mode"));
+        long index = resume ? state.getLong("index", 0) : 0;
+
+        switch (mode) {
+            case StratifiedSampler.MODE:
+                return new StratifiedSampler(index, plugin.getConfigManager().getInt("teleport.sampling.strata", 16));
+            case HaltonSampler.MODE:
+                SplittableRandom random = new SplittableRandom(worldSeed);
+                double offsetU = resume ? state.getDouble("offset-u", random.nextDouble()) : random.nextDouble();
+                double offsetV = resume ? state.getDouble("offset-v", random.nextDouble()) : random.nextDouble();
+                return new HaltonSampler(index, offsetU, offsetV);
+            default:
+                return new UniformSampler(index);
+        }
+    }
+
+    private String getConfiguredMode() {
+        String mode = plugin.getConfigManager().getString("teleport.sampling.mode", HaltonSampler.MODE).toLowerCase(Locale.ROOT);
+        switch (mode) {
+            case UniformSampler.MODE:
+            case StratifiedSampler.MODE:
+            case HaltonSampler.MODE:
+                return mode;
+            default:
+                if (!mode.equals(warnedMode)) {
+                    warnedMode = mode;
+                    plugin.getLogger().warning("Unknown teleport.sampling.mode '" + mode + "', using uniform");
+                }
+                return UniformSampler.MODE;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SearchExecutor
+ *
+ * Worker threads for the location search's column scans, separate from the Bukkit async pool so
+ * search throughput can be tuned on its own (teleport.search-executor).
+ *
+ * - Fixed number of named daemon threads ("AdvancedRTPQueue-Search-N")
+ * - Bounded queue; when it is full the task is refused and the caller drops the candidate
+ *   instead of piling up work
+ *
+ * The thread count can be changed on reload; the queue size applies from the next start.
+ */
+public class SearchExecutor {
+    private final ThreadPoolExecutor executor;
+
+    public SearchExecutor(int threads, int queueSize) {
+        int size = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                size, size,
+                30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                r -> {
+                    Thread thread = new Thread(r, "AdvancedRTPQueue-Search-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queue a task. Returns false if the executor is saturated or shut down.
+     */
+    public boolean execute(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    public void setThreads(int threads) {
+        int size = Math.max(1, threads);
+        if (size > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+    }
+
+    public int getQueuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
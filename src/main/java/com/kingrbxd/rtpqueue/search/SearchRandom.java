@@ -0,0 +1,50 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SearchRandom
+ *
+ * Deterministic random streams for the location search. Every world has its own SplittableRandom
+ * derived from a master seed, and every search takes a fresh seed from its world's stream.
+ *
+ * With teleport.search-random.seed set, the same sequence of searches produces the same
+ * candidates, and with log-seeds each search logs its seed, so failed searches can be replayed
+ * for benchmarking. Without a configured seed the master seed is random per start.
+ *
+ * Main thread only.
+ */
+public class SearchRandom {
+    private final long masterSeed;
+    private final Map<String, SplittableRandom> worldStreams = new ConcurrentHashMap<>(); // key: bukkit world name
+
+    public SearchRandom(long masterSeed) {
+        this.masterSeed = masterSeed;
+    }
+
+    /**
+     * Seed for the next search in a world.
+     */
+    public long nextSearchSeed(String bukkitWorldName) {
+        return worldStreams.computeIfAbsent(bukkitWorldName, k -> new SplittableRandom(getWorldSeed(k))).nextLong();
+    }
+
+    /**
+     * Fixed seed of a world, derived from the master seed.
+     */
+    public long getWorldSeed(String bukkitWorldName) {
+        return masterSeed ^ mix(bukkitWorldName.hashCode());
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
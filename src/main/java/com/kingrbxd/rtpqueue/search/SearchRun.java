@@ -0,0 +1,539 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import com.kingrbxd.rtpqueue.protection.ClaimIndex;
+import io.papermc.lib.PaperLib;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.HeightMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.generator.BiomeProvider;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * SearchRun
+ *
+ * One search, driven by LocationFinder's search loop until every joined request has a location, the
+ * attempt budget is used up or all requests have timed out or been cancelled.
+ *
+ * Each dispatched candidate goes through the cheap prefilters first (rejection memory, blocked biomes,
+ * surface prediction), then its chunk is loaded asynchronously if needed, snapshotted on the main
+ * thread and scanned on a worker thread. Everything except the column scan runs on the main thread.
+ */
+final class SearchRun {
+    private final LocationFinder finder;
+    private final AdvancedRTPQueue plugin;
+    private final WorldManager.WorldSettings worldSettings;
+    private final Deque<Request> requests = new ArrayDeque<>();
+    private final int attemptsPerRequest;
+    private final long timeout;
+    private final RejectionMemory rejectionMemory;
+    private final long rejectionExpiry;
+    private final int maxResamples;
+    private final CoordinateSampler sampler;
+    private final IslandMask islandMask;
+    private final double landShare;
+    private final double[] point = new double[2];
+    private final int[] column = new int[2];
+    private final long seed;
+    private final SplittableRandom random;
+    private Random generatorRandom; // java.util.Random for ChunkGenerator calls, created on first use
+    private SafetyScanner scanner;
+    private World world;
+    private int maxAttempts = 0;   // grows by attemptsPerRequest for every joined request
+    private int attempts = 0;      // candidates dispatched
+    private int pendingWork = 0;   // chunk loads and scans this run is still waiting on
+    private boolean done = false;
+
+    SearchRun(LocationFinder finder, AdvancedRTPQueue plugin, WorldManager.WorldSettings worldSettings) {
+        this.finder = finder;
+        this.plugin = plugin;
+        this.worldSettings = worldSettings;
+        this.attemptsPerRequest = Math.max(1, worldSettings.getMaxTeleportAttempts());
+        this.timeout = plugin.getConfigManager().getInt("teleport.search-timeout", 30) * 1000L;
+        this.rejectionMemory = finder.getRejectionMemory(worldSettings);
+        this.rejectionExpiry = Math.max(1, plugin.getConfigManager().getInt("teleport.rejection-memory.expiry", 300)) * 1000L;
+        this.maxResamples = Math.max(0, plugin.getConfigManager().getInt("teleport.rejection-memory.max-resamples", 8));
+        this.seed = finder.nextSearchSeed(worldSettings.getBukkitWorldName());
+        this.random = new SplittableRandom(seed);
+        this.sampler = finder.getSampler(worldSettings.getBukkitWorldName(), seed);
+        this.islandMask = finder.getIslandMasks().get(worldSettings);
+        this.landShare = Math.max(0.0, Math.min(1.0, plugin.getConfigManager().getDouble("teleport.island-mask.land-share", 0.8)));
+        if (plugin.getConfigManager().getBoolean("teleport.search-random.log-seeds")) {
+            plugin.getLogger().info("Location search in " + worldSettings.getBukkitWorldName() + " using seed " + seed);
+        }
+    }
+
+    WorldManager.WorldSettings getWorldSettings() {
+        return worldSettings;
+    }
+
+    /**
+     * Add a request to this run. Returns null if the run has already finished.
+     */
+    CompletableFuture<Location> join() {
+        if (done) return null;
+
+        Request request = new Request(System.currentTimeMillis() + timeout);
+        requests.addLast(request);
+        maxAttempts += attemptsPerRequest;
+        return request.future;
+    }
+
+    /**
+     * Per-tick housekeeping. Returns false if the run has nothing to dispatch this tick.
+     */
+    boolean prepareTick() {
+        if (done) {
+            finish();
+            return false;
+        }
+
+        try {
+            expireRequests();
+            if (requests.isEmpty()) {
+                finish(); // everyone timed out or cancelled
+                return false;
+            }
+
+            world = worldSettings.getBukkitWorld();
+            if (world == null) {
+                fail();
+                return false;
+            }
+
+            if (attempts >= maxAttempts) {
+                // wait for outstanding chunk loads and scans before giving up
+                if (pendingWork == 0) {
+                    fail();
+                }
+                return false;
+            }
+
+            if (scanner == null) {
+                scanner = finder.createScanner(world, worldSettings);
+            }
+            return true;
+        } catch (Exception e) {
+            logSearchError(e);
+            fail();
+            return false;
+        }
+    }
+
+    /**
+     * Dispatch one candidate. Returns false when this run cannot dispatch more this tick
+     * (finished, out of attempts or at the chunk-load limit).
+     */
+    boolean dispatchNext() {
+        if (done || attempts >= maxAttempts) return false;
+        try {
+            return dispatchCandidate(world);
+        } catch (Exception e) {
+            logSearchError(e);
+            fail();
+            return false;
+        }
+    }
+
+    void cancelRequests() {
+        Request request;
+        while ((request = requests.pollFirst()) != null) {
+            request.future.cancel(false);
+        }
+    }
+
+    void finish() {
+        done = true;
+        finder.runFinished(this);
+    }
+
+    private void logSearchError(Exception e) {
+        if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+            plugin.getLogger().warning("Error in location search: " + e.getMessage());
+        }
+    }
+
+    private void expireRequests() {
+        long now = System.currentTimeMillis();
+        Iterator<Request> it = requests.iterator();
+        while (it.hasNext()) {
+            Request request = it.next();
+            if (request.future.isDone()) {
+                it.remove(); // cancelled by the session
+            } else if (now > request.deadline) {
+                finder.getStats().recordTimeout(worldSettings.getBukkitWorldName());
+                request.future.completeExceptionally(new TimeoutException("Location search timed out in " + worldSettings.getBukkitWorldName()));
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Pick a random column and check it, loading its chunk first if required.
+     * Returns false if the candidate could not be dispatched because of the chunk-load limit.
+     */
+    private boolean dispatchCandidate(World world) {
+        // re-roll columns in recently rejected cells or near recent destinations; O(1) per roll
+        int resamples = 0;
+        do {
+            if (!nextColumn(world)) {
+                // loaded-chunks-only and nothing is loaded inside the bounds
+                consumeAttempt(world);
+                finder.getStats().recordRejection(world.getName(), RejectReason.CHUNK_NOT_LOADED);
+                return true;
+            }
+        } while (resamples++ < maxResamples && isAvoided(world, column[0], column[1]));
+        int x = column[0];
+        int z = column[1];
+
+        // If safe-teleport is OFF, don't require loaded chunks or ground.
+        if (!plugin.getConfigManager().getBoolean("teleport.safe-teleport", true)) {
+            consumeAttempt(world);
+            complete(createUnsafeLocation(world, x, z));
+            return true;
+        }
+
+        // keep the 3x3 neighbourhood inside the candidate chunk
+        x = (x & ~15) | Math.max(1, Math.min(14, x & 15));
+        z = (z & ~15) | Math.max(1, Math.min(14, z & 15));
+
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        int columnX = x;
+        int columnZ = z;
+
+        if (finder.getDestinationSpacing().isTooClose(world.getName(), x, z)) {
+            consumeAttempt(world);
+            reject(world, x, z, RejectReason.TOO_CLOSE);
+            return true;
+        }
+
+        if (isBiomeBlocked(world, x, z)) {
+            consumeAttempt(world);
+            reject(world, x, z, RejectReason.BLOCKED_BIOME);
+            return true;
+        }
+
+        // fully claimed chunks are dropped before any chunk is loaded or block read
+        if (finder.isChunkClaimed(world, chunkX, chunkZ)) {
+            consumeAttempt(world);
+            reject(world, x, z, RejectReason.CLAIMED);
+            return true;
+        }
+
+        if (world.isChunkLoaded(chunkX, chunkZ)) {
+            consumeAttempt(world);
+            scanChunk(world.getChunkAt(chunkX, chunkZ), columnX, columnZ);
+            return true;
+        }
+
+        if (!plugin.getConfigManager().getBoolean("teleport.async-chunk-loading.enabled", true)) {
+            // legacy behaviour: unloaded chunks are rejected outright
+            consumeAttempt(world);
+            reject(world, x, z, RejectReason.CHUNK_NOT_LOADED);
+            return true;
+        }
+
+        if (!world.isChunkGenerated(chunkX, chunkZ)) {
+            if (!plugin.getConfigManager().getBoolean("teleport.async-chunk-loading.generate-new-chunks", true)) {
+                // only land in terrain that already exists (e.g. after /rtpqueue pregen)
+                consumeAttempt(world);
+                reject(world, x, z, RejectReason.CHUNK_NOT_GENERATED);
+                return true;
+            }
+            if (generatorRandom == null) {
+                generatorRandom = new Random(seed);
+            }
+            RejectReason predicted = worldSettings.getStrategy().isSurfacePredictable()
+                    ? finder.getSurfacePredictor().predict(world, generatorRandom, x, z, worldSettings.getMinY(), worldSettings.getMaxY())
+                    : null;
+            if (predicted != null) {
+                if (islandMask != null) {
+                    islandMask.mark(x, z, false); // no usable island surface predicted here
+                }
+                consumeAttempt(world);
+                reject(world, x, z, predicted);
+                return true;
+            }
+        }
+
+        if (!finder.tryAcquireChunkLoad(world)) {
+            return false;
+        }
+
+        consumeAttempt(world);
+        pendingWork++;
+        long loadStart = System.nanoTime();
+        PaperLib.getChunkAtAsync(world, chunkX, chunkZ, true).whenComplete((chunk, error) -> {
+            finder.releaseChunkLoad(world);
+            pendingWork--;
+            finder.getStats().recordLatency(world.getName(), SearchStats.Stage.CHUNK_LOAD, System.nanoTime() - loadStart);
+
+            if (done) return;
+            if (error != null || chunk == null) {
+                reject(world, columnX, columnZ, RejectReason.CHUNK_NOT_LOADED);
+                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                    plugin.getLogger().warning("Failed to load chunk " + chunkX + "," + chunkZ + " in " + world.getName()
+                            + (error != null ? ": " + error.getMessage() : ""));
+                }
+                return;
+            }
+
+            long start = System.nanoTime();
+            scanChunk(chunk, columnX, columnZ);
+            finder.getTickBudget().charge(System.nanoTime() - start);
+        });
+        return true;
+    }
+
+    /**
+     * Write the next candidate column to column[]: from the sampler, or from a random loaded chunk
+     * for loaded-chunks-only worlds. Returns false if such a world has no loaded chunk in its bounds.
+     */
+    private boolean nextColumn(World world) {
+        int minX = Math.min(worldSettings.getMinX(), worldSettings.getMaxX());
+        int maxX = Math.max(worldSettings.getMinX(), worldSettings.getMaxX());
+        int minZ = Math.min(worldSettings.getMinZ(), worldSettings.getMaxZ());
+        int maxZ = Math.max(worldSettings.getMinZ(), worldSettings.getMaxZ());
+
+        if (worldSettings.isLoadedChunksOnly()) {
+            long chunk = finder.getLoadedChunkIndex().pick(world.getName(), random);
+            if (chunk == LoadedChunkIndex.NONE) return false;
+            column[0] = Math.max(minX, Math.min(maxX, (LoadedChunkIndex.getX(chunk) << 4) + 1 + random.nextInt(14)));
+            column[1] = Math.max(minZ, Math.min(maxZ, (LoadedChunkIndex.getZ(chunk) << 4) + 1 + random.nextInt(14)));
+            return true;
+        }
+
+        // islands: mostly known land, the rest explores cells not seen yet
+        if (islandMask != null && (islandMask.getUnknownCells() == 0 || random.nextDouble() < landShare)
+                && islandMask.pickLand(random, column)) {
+            return true;
+        }
+
+        long spanX = (long) maxX - minX + 1;
+        long spanZ = (long) maxZ - minZ + 1;
+        sampler.next(random, point);
+        column[0] = (int) (minX + Math.min(spanX - 1, (long) (point[0] * spanX)));
+        column[1] = (int) (minZ + Math.min(spanZ - 1, (long) (point[1] * spanZ)));
+        return true;
+    }
+
+    private boolean isAvoided(World world, int x, int z) {
+        return (rejectionMemory != null && rejectionMemory.recall(x, z) != null)
+                || (islandMask != null && islandMask.isVoid(x, z))
+                || finder.getDestinationSpacing().isTooClose(world.getName(), x, z);
+    }
+
+    private void consumeAttempt(World world) {
+        attempts++;
+        finder.getStats().recordCandidate(world.getName());
+    }
+
+    /**
+     * Count a rejection and remember it if it applies to the surrounding area. Thread-safe.
+     */
+    private void reject(World world, int x, int z, RejectReason reason) {
+        finder.getStats().recordRejection(world.getName(), reason);
+        if (rejectionMemory != null) {
+            rejectionMemory.remember(x, z, reason, rejectionExpiry);
+        }
+    }
+
+    /**
+     * Biome prefilter. Uses the world's custom BiomeProvider if it has one, otherwise World.getBiome,
+     * sampled at sea level clamped to the configured Y range. Never loads the chunk.
+     */
+    private boolean isBiomeBlocked(World world, int x, int z) {
+        if (worldSettings.getBlockedBiomes().isEmpty()) return false;
+
+        int y = Math.max(worldSettings.getMinY(), Math.min(worldSettings.getMaxY(), world.getSeaLevel()));
+        y = Math.max(world.getMinHeight(), Math.min(world.getMaxHeight() - 1, y));
+        try {
+            BiomeProvider provider = world.getBiomeProvider();
+            Biome biome = provider != null ? provider.getBiome(world, x, y, z) : world.getBiome(x, y, z);
+            return worldSettings.isBiomeBlocked(biome);
+        } catch (Exception e) {
+            // unknown biome source: let the real checks decide
+            return false;
+        }
+    }
+
+    /**
+     * Snapshot the chunk (main thread), scan the column on a worker thread and come back to the
+     * main thread for the claim check (checked on the worker when the spatial claim index is ready).
+     *
+     * The rest of the harvest grid is scanned from the same snapshot: if the candidate column fails,
+     * a safe spot elsewhere in the chunk answers the request instead, and spare spots go to the pool.
+     */
+    private void scanChunk(Chunk chunk, int x, int z) {
+        if (!plugin.isEnabled()) return;
+
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(true, false, false);
+        World world = chunk.getWorld();
+        int surfaceY = world.getHighestBlockYAt(x, z, HeightMap.MOTION_BLOCKING_NO_LEAVES);
+        int topY = world.getHighestBlockYAt(x, z, HeightMap.WORLD_SURFACE);
+        int[] harvestColumns = finder.getHarvester().sampleColumns(world, chunk.getX(), chunk.getZ(), worldSettings, x, z);
+        finder.getIslandMasks().mark(worldSettings, world, chunk.getX(), chunk.getZ(), x, z, topY, harvestColumns);
+        SafetyScanner columnScanner = this.scanner;
+        ClaimIndex claimIndex = finder.getClaimIndex();
+
+        pendingWork++;
+        boolean queued = finder.executeSearchTask(() -> {
+            int groundY = SafetyScanner.NO_SAFE_Y;
+            RejectReason reason;
+            long scanStart = System.nanoTime();
+            try {
+                groundY = columnScanner.findSafeY(snapshot, x & 15, z & 15, surfaceY, topY);
+                reason = groundY == SafetyScanner.NO_SAFE_Y
+                        ? RejectReason.NO_SAFE_Y
+                        : columnScanner.check(snapshot, x & 15, groundY + 1, z & 15);
+                finder.getStats().recordLatency(world.getName(), SearchStats.Stage.SAFETY_SCAN, System.nanoTime() - scanStart);
+            } catch (Exception e) {
+                if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                    plugin.getLogger().warning("Error scanning " + x + "," + z + " in " + world.getName() + ": " + e.getMessage());
+                }
+                reason = RejectReason.NO_SAFE_Y;
+            }
+            if (reason == null && claimIndex != null) {
+                // the claim index answers off the main thread
+                long claimStart = System.nanoTime();
+                if (claimIndex.isClaimed(world.getName(), x, z)) {
+                    reason = RejectReason.CLAIMED;
+                }
+                finder.getStats().recordLatency(world.getName(), SearchStats.Stage.CLAIM_CHECK, System.nanoTime() - claimStart);
+            }
+            if (reason != null) {
+                reject(world, x, z, reason);
+            }
+
+            List<int[]> harvested;
+            try {
+                harvested = harvestColumns.length > 0
+                        ? columnScanner.findSafeColumns(snapshot, harvestColumns)
+                        : Collections.emptyList();
+            } catch (Exception e) {
+                harvested = Collections.emptyList();
+            }
+            LocationFinder.removeClaimed(claimIndex, world.getName(), chunk.getX() << 4, chunk.getZ() << 4, harvested);
+
+            int safeY = groundY;
+            RejectReason rejection = reason;
+            List<int[]> spots = harvested;
+
+            finder.runOnMainThread(() -> {
+                pendingWork--;
+                if (done) return;
+
+                Location location = null;
+                if (rejection == null) {
+                    location = new Location(world, x + 0.5, safeY + 1, z + 0.5);
+                }
+                if (location != null && claimIndex == null) {
+                    // no claim index: the claim plugins are asked here, on the main thread
+                    long start = System.nanoTime();
+                    boolean claimed = finder.isClaimed(location);
+                    long elapsed = System.nanoTime() - start;
+                    finder.getTickBudget().charge(elapsed);
+                    finder.getStats().recordLatency(world.getName(), SearchStats.Stage.CLAIM_CHECK, elapsed);
+                    if (claimed) {
+                        reject(world, x, z, RejectReason.CLAIMED);
+                        location = null;
+                    }
+                }
+
+                Location found = finder.getHarvester().takeSpots(world, worldSettings, chunk.getX() << 4, chunk.getZ() << 4, spots, location);
+                if (found != null) {
+                    complete(found);
+                }
+            });
+        });
+
+        if (!queued) {
+            // executor saturated: drop this candidate rather than queueing more work
+            pendingWork--;
+            if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+                plugin.getLogger().warning("Search executor is full, skipped column " + x + "," + z + " in " + world.getName());
+            }
+        }
+    }
+
+    /**
+     * Hand a found location to the oldest waiting request; finish once nobody is left waiting.
+     */
+    private void complete(Location location) {
+        finder.getStats().recordSuccess(worldSettings.getBukkitWorldName());
+
+        Request request;
+        while ((request = requests.pollFirst()) != null) {
+            if (request.future.complete(location)) break;
+        }
+        if (request == null && plugin.getLocationPool() != null
+                && plugin.getConfigManager().getBoolean("teleport.safe-teleport", true)) {
+            // the request was withdrawn after the candidate was dispatched; keep the location
+            plugin.getLocationPool().offer(location);
+        }
+
+        if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+            plugin.getLogger().info("Location found after " + attempts + " attempts (" + requests.size() + " requests still waiting). Stats for "
+                    + finder.getStats().getSummary(worldSettings.getBukkitWorldName()));
+        }
+
+        expireRequests();
+        if (requests.isEmpty()) {
+            finish();
+        }
+    }
+
+    /**
+     * Give up: every waiting request completes with null.
+     */
+    private void fail() {
+        if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+            plugin.getLogger().info("Search gave up after " + attempts + " attempts (seed " + seed + "). Stats for "
+                    + finder.getStats().getSummary(worldSettings.getBukkitWorldName()));
+        }
+        Request request;
+        while ((request = requests.pollFirst()) != null) {
+            if (request.future.complete(null)) {
+                finder.getStats().recordFailure(worldSettings.getBukkitWorldName());
+            }
+        }
+        finish();
+    }
+
+    private Location createUnsafeLocation(World world, int x, int z) {
+        int minY = Math.max(world.getMinHeight(), worldSettings.getMinY());
+        int maxY = Math.min(world.getMaxHeight() - 1, worldSettings.getMaxY());
+
+        // Try to pick a sensible Y: use spawn Y if present, otherwise minY.
+        int spawnY = world.getSpawnLocation() != null ? world.getSpawnLocation().getBlockY() : minY;
+        int y = Math.min(maxY, Math.max(minY, spawnY));
+
+        if (plugin.getConfigManager().getBoolean("plugin.debug")) {
+            plugin.getLogger().info("Unsafe mode: using raw location " + x + "," + y + "," + z + " in " + world.getName());
+        }
+        return new Location(world, x + 0.5, y, z + 0.5);
+    }
+
+    private static final class Request {
+        private final CompletableFuture<Location> future = new CompletableFuture<>();
+        private final long deadline;
+
+        private Request(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+}
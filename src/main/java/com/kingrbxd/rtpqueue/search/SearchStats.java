@@ -0,0 +1,165 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SearchStats
+ *
+ * Per-world funnel telemetry for the location search:
+ *  - candidates checked, locations found and rejections by reason
+ *  - requests that timed out or were given up after max-attempts
+ *  - latency histograms (LatencyHistogram) for chunk loads, safety scans and claim checks
+ *
+ * Counters are LongAdders so they can be bumped from worker threads; shown by /rtpqueue stats.
+ *
+ * Worlds are keyed by bukkit world name.
+ */
+public class SearchStats {
+    private final Map<String, WorldStats> worlds = new ConcurrentHashMap<>();
+
+    public void recordCandidate(String bukkitWorldName) {
+        getWorld(bukkitWorldName).candidates.increment();
+    }
+
+    public void recordSuccess(String bukkitWorldName) {
+        getWorld(bukkitWorldName).successes.increment();
+    }
+
+    public void recordRejection(String bukkitWorldName, RejectReason reason) {
+        getWorld(bukkitWorldName).rejections[reason.ordinal()].increment();
+    }
+
+    public void recordTimeout(String bukkitWorldName) {
+        getWorld(bukkitWorldName).timeouts.increment();
+    }
+
+    public void recordFailure(String bukkitWorldName) {
+        getWorld(bukkitWorldName).failures.increment();
+    }
+
+    public void recordLatency(String bukkitWorldName, Stage stage, long nanos) {
+        getWorld(bukkitWorldName).latencies[stage.ordinal()].record(nanos);
+    }
+
+    public long getCandidates(String bukkitWorldName) {
+        WorldStats stats = worlds.get(bukkitWorldName);
+        return stats != null ? stats.candidates.sum() : 0;
+    }
+
+    public long getSuccesses(String bukkitWorldName) {
+        WorldStats stats = worlds.get(bukkitWorldName);
+        return stats != null ? stats.successes.sum() : 0;
+    }
+
+    public long getRejections(String bukkitWorldName, RejectReason reason) {
+        WorldStats stats = worlds.get(bukkitWorldName);
+        return stats != null ? stats.rejections[reason.ordinal()].sum() : 0;
+    }
+
+    public long getTimeouts(String bukkitWorldName) {
+        WorldStats stats = worlds.get(bukkitWorldName);
+        return stats != null ? stats.timeouts.sum() : 0;
+    }
+
+    public long getFailures(String bukkitWorldName) {
+        WorldStats stats = worlds.get(bukkitWorldName);
+        return stats != null ? stats.failures.sum() : 0;
+    }
+
+    /**
+     * Latency histogram of a stage, or null if the world has no samples yet.
+     */
+    public LatencyHistogram getLatency(String bukkitWorldName, Stage stage) {
+        WorldStats stats = worlds.get(bukkitWorldName);
+        return stats != null ? stats.latencies[stage.ordinal()] : null;
+    }
+
+    /**
+     * Worlds that have recorded anything since the last reset.
+     */
+    public List<String> getWorldNames() {
+        return new ArrayList<>(worlds.keySet());
+    }
+
+    /**
+     * Share of candidates rejected for the given reason, 0-1.
+     */
+    public double getRejectionRate(String bukkitWorldName, RejectReason reason) {
+        long candidates = getCandidates(bukkitWorldName);
+        return candidates > 0 ? (double) getRejections(bukkitWorldName, reason) / candidates : 0.0;
+    }
+
+    /**
+     * One-line summary for debug logging.
+     */
+    public String getSummary(String bukkitWorldName) {
+        long candidates = getCandidates(bukkitWorldName);
+        StringBuilder sb = new StringBuilder()
+                .append(bukkitWorldName).append(": ")
+                .append(candidates).append(" candidates, ")
+                .append(getSuccesses(bukkitWorldName)).append(" found, ")
+                .append(getTimeouts(bukkitWorldName)).append(" timed out, ")
+                .append(getFailures(bukkitWorldName)).append(" given up");
+
+        for (RejectReason reason : RejectReason.values()) {
+            long count = getRejections(bukkitWorldName, reason);
+            if (count == 0) continue;
+            sb.append(", ").append(reason.getDescription()).append(": ").append(count)
+                    .append(String.format(" (%.1f%%)", getRejectionRate(bukkitWorldName, reason) * 100.0));
+        }
+        return sb.toString();
+    }
+
+    public void reset() {
+        worlds.clear();
+    }
+
+    public void reset(String bukkitWorldName) {
+        worlds.remove(bukkitWorldName);
+    }
+
+    private WorldStats getWorld(String bukkitWorldName) {
+        return worlds.computeIfAbsent(bukkitWorldName, k -> new WorldStats());
+    }
+
+    private static class WorldStats {
+        private final LongAdder candidates = new LongAdder();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder[] rejections = new LongAdder[RejectReason.values().length];
+        private final LatencyHistogram[] latencies = new LatencyHistogram[Stage.values().length];
+
+        private WorldStats() {
+            for (int i = 0; i < rejections.length; i++) {
+                rejections[i] = new LongAdder();
+            }
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    /**
+     * Timed stages of a candidate.
+     */
+    public enum Stage {
+        CHUNK_LOAD("chunk load"),
+        SAFETY_SCAN("safety scan"),
+        CLAIM_CHECK("claim check");
+
+        private final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
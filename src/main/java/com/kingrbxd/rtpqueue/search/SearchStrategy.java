@@ -0,0 +1,73 @@
+package com.kingrbxd.rtpqueue.search;
+
+import com.kingrbxd.rtpqueue.handlers.WorldManager;
+import org.bukkit.World;
+
+import java.util.Locale;
+
+/**
+ * How the location search picks the landing Y in a column, chosen per world (strategy in the world's
+ * config, "auto" picks by World.Environment).
+ *
+ * - SURFACE: the highest safe ground, answered from the heightmaps where possible
+ * - CAVERN: the first open floor found bottom-up within the world's cavern-bands; used for the Nether,
+ *   where the heightmaps only see the bedrock roof
+ * - ISLANDS: surface landing, but candidates are drawn from cells of an IslandMask known to hold land;
+ *   used for the End, where most of the box is void
+ */
+public enum SearchStrategy {
+    SURFACE {
+        @Override
+        SafetyScanner createScanner(World world, WorldManager.WorldSettings worldSettings, MaterialRules rules) {
+            return new SafetyScanner(world, worldSettings.getMinY(), worldSettings.getMaxY(), rules);
+        }
+    },
+    CAVERN {
+        @Override
+        SafetyScanner createScanner(World world, WorldManager.WorldSettings worldSettings, MaterialRules rules) {
+            return new SafetyScanner(world, worldSettings.getMinY(), worldSettings.getMaxY(), rules, worldSettings.getCavernBands());
+        }
+    },
+    ISLANDS {
+        @Override
+        SafetyScanner createScanner(World world, WorldManager.WorldSettings worldSettings, MaterialRules rules) {
+            return new SafetyScanner(world, worldSettings.getMinY(), worldSettings.getMaxY(), rules);
+        }
+    };
+
+    /**
+     * The scanner a search in this world uses for its candidate and harvest columns.
+     */
+    abstract SafetyScanner createScanner(World world, WorldManager.WorldSettings worldSettings, MaterialRules rules);
+
+    /**
+     * Whether SurfacePredictor applies: its prediction is the generator's surface, which is the roof
+     * in a cavern world.
+     */
+    boolean isSurfacePredictable() {
+        return this != CAVERN;
+    }
+
+    public static SearchStrategy forEnvironment(World.Environment environment) {
+        switch (environment) {
+            case NETHER:
+                return CAVERN;
+            case THE_END:
+                return ISLANDS;
+            default:
+                return SURFACE;
+        }
+    }
+
+    /**
+     * The strategy for a config value, or null for "auto", empty or unknown values.
+     */
+    public static SearchStrategy parse(String name) {
+        if (name == null) return null;
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
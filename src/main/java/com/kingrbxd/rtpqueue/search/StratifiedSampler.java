@@ -0,0 +1,68 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Jittered stratified sampling.
+ *
+ * The unit square is split into strata x strata cells. Every cell is visited once per round, in an
+ * order that steps through the cells with a stride coprime to the cell count, so consecutive points
+ * land far apart. Within its cell each point is jittered randomly.
+ */
+public class StratifiedSampler implements CoordinateSampler {
+    public static final String MODE = "stratified";
+
+    private final int strata;
+    private final int cells;
+    private final int stride;
+    private long index;
+
+    public StratifiedSampler(long index, int strata) {
+        this.strata = Math.max(1, Math.min(1024, strata));
+        this.cells = this.strata * this.strata;
+        this.stride = coprimeStride(cells);
+        this.index = Math.max(0, index);
+    }
+
+    @Override
+    public void next(RandomGenerator random, double[] out) {
+        int cell = (int) ((index % cells) * stride % cells);
+        int cellX = cell % strata;
+        int cellZ = cell / strata;
+
+        out[0] = (cellX + random.nextDouble()) / strata;
+        out[1] = (cellZ + random.nextDouble()) / strata;
+        index++;
+    }
+
+    @Override
+    public String getMode() {
+        return MODE;
+    }
+
+    @Override
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * A stride near cells / golden ratio that is coprime to cells, so index * stride visits every cell.
+     */
+    private static int coprimeStride(int cells) {
+        if (cells <= 2) return 1;
+        int stride = Math.max(1, (int) (cells * 0.6180339887));
+        while (gcd(stride, cells) != 1) {
+            stride++;
+        }
+        return stride;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,94 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.bukkit.HeightMap;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.generator.BiomeProvider;
+import org.bukkit.generator.ChunkGenerator;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SurfacePredictor
+ *
+ * Predicts the surface of a column before its chunk is generated, so columns that are obviously
+ * unusable never trigger terrain generation.
+ *
+ * Worlds with a custom ChunkGenerator are asked for base heights:
+ * - WORLD_SURFACE_WG above OCEAN_FLOOR_WG means the column is topped by a fluid (sea, lava lake)
+ * - A predicted surface outside the world's Y range is rejected as well
+ *
+ * Vanilla overworlds (getGenerator() == null) have no height API, so their prediction comes from the
+ * biome source: the vanilla generator fills ocean and river biomes with water up to sea level, so those
+ * columns are predicted to be fluid. World.getBiome samples the biome source without loading the chunk.
+ * Vanilla worlds get no out-of-range prediction, and vanilla Nether and End worlds are not predicted.
+ *
+ * Generators that throw UnsupportedOperationException are remembered and skipped; for those the
+ * biome prefilter is the only stage before the chunk load.
+ */
+public class SurfacePredictor {
+    /** Biomes with open water at sea level; the frozen variants are left out, their ice can be stood on. */
+    private static final Set<Biome> WATER_BIOMES = EnumSet.of(
+            Biome.OCEAN, Biome.DEEP_OCEAN, Biome.WARM_OCEAN, Biome.LUKEWARM_OCEAN, Biome.DEEP_LUKEWARM_OCEAN,
+            Biome.COLD_OCEAN, Biome.DEEP_COLD_OCEAN, Biome.RIVER
+    );
+
+    private final Set<String> unsupportedWorlds = ConcurrentHashMap.newKeySet(); // bukkit world names
+
+    /**
+     * Predict whether a column is usable. Call on the main thread.
+     *
+     * @return null if the column may be dry land inside minY..maxY (or cannot be predicted),
+     *         otherwise the reason it is not
+     */
+    public RejectReason predict(World world, Random random, int x, int z, int minY, int maxY) {
+        if (unsupportedWorlds.contains(world.getName())) return null;
+
+        ChunkGenerator generator = world.getGenerator();
+        if (generator == null) {
+            return predictFromBiome(world, x, z);
+        }
+
+        int surface;
+        int floor;
+        try {
+            // heightmap values are the first free Y above the column
+            surface = generator.getBaseHeight(world, random, x, z, HeightMap.WORLD_SURFACE_WG) - 1;
+            floor = generator.getBaseHeight(world, random, x, z, HeightMap.OCEAN_FLOOR_WG) - 1;
+        } catch (UnsupportedOperationException e) {
+            unsupportedWorlds.add(world.getName());
+            return null;
+        }
+
+        if (surface > floor) return RejectReason.PREDICTED_FLUID;
+        if (surface < minY || surface > maxY) return RejectReason.PREDICTED_OUT_OF_RANGE;
+        return null;
+    }
+
+    /**
+     * Vanilla prediction: open water if the biome source places an ocean or river at sea level.
+     */
+    private RejectReason predictFromBiome(World world, int x, int z) {
+        if (world.getEnvironment() != World.Environment.NORMAL) {
+            unsupportedWorlds.add(world.getName());
+            return null;
+        }
+
+        int y = Math.max(world.getMinHeight(), Math.min(world.getMaxHeight() - 1, world.getSeaLevel()));
+        try {
+            BiomeProvider provider = world.getBiomeProvider();
+            Biome biome = provider != null ? provider.getBiome(world, x, y, z) : world.getBiome(x, y, z);
+            return WATER_BIOMES.contains(biome) ? RejectReason.PREDICTED_FLUID : null;
+        } catch (Exception e) {
+            unsupportedWorlds.add(world.getName());
+            return null;
+        }
+    }
+
+    public void clear() {
+        unsupportedWorlds.clear();
+    }
+}
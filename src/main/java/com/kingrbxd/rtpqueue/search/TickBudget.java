@@ -0,0 +1,114 @@
+package com.kingrbxd.rtpqueue.search;
+
+import io.papermc.lib.PaperLib;
+import org.bukkit.Bukkit;
+
+/**
+ * TickBudget
+ *
+ * Decides how much main-thread work the location search may do in a tick.
+ *
+ * - The time budget per tick is teleport.search-budget.max-ms-per-tick, shrunk to whatever headroom
+ *   is left below 50ms at the current MSPT
+ * - Main-thread work done outside the search loop (chunk snapshots, claim checks) is charged
+ *   against the next tick's budget
+ * - The number of candidates per tick adapts AIMD-style: halved while MSPT is above target-mspt,
+ *   raised by one while the previous tick stayed well inside its budget
+ *
+ * MSPT comes from Paper's average tick time. On Spigot it is estimated from how late the search
+ * loop's own ticks arrive, so only actual lag is detected there.
+ *
+ * Main thread only.
+ */
+public class TickBudget {
+    private static final double TICK_MS = 50.0;
+    private static final double HEADROOM_MS = 5.0;
+
+    private double maxMsPerTick = 2.0;
+    private double targetMspt = 40.0;
+    private int minCandidates = 1;
+    private int maxCandidates = 50;
+
+    private int candidateLimit = 5;
+    private long tickStart;
+    private long tickBudgetNanos;
+    private long chargedNanos;
+    private long lastTickStart;
+    private double intervalMs = TICK_MS; // smoothed time between ticks, Spigot fallback
+    private double mspt;
+    private double lastUsedMs;
+
+    public void configure(double maxMsPerTick, double targetMspt, int minCandidates, int maxCandidates) {
+        this.maxMsPerTick = Math.max(0.1, maxMsPerTick);
+        this.targetMspt = Math.max(1.0, Math.min(TICK_MS, targetMspt));
+        this.minCandidates = Math.max(0, minCandidates);
+        this.maxCandidates = Math.max(this.minCandidates, Math.max(1, maxCandidates));
+        this.candidateLimit = Math.max(this.minCandidates, Math.min(this.maxCandidates, candidateLimit));
+    }
+
+    /**
+     * Start a tick: sample MSPT, adapt the candidate limit and compute this tick's time budget.
+     */
+    public void beginTick(long now) {
+        if (lastTickStart != 0) {
+            intervalMs = intervalMs * 0.9 + ((now - lastTickStart) / 1_000_000.0) * 0.1;
+        }
+        lastTickStart = now;
+        tickStart = now;
+        mspt = measureMspt();
+
+        if (mspt > targetMspt) {
+            candidateLimit = Math.max(minCandidates, candidateLimit / 2);
+        } else if (lastUsedMs < maxMsPerTick * 0.75) {
+            candidateLimit = Math.min(maxCandidates, candidateLimit + 1);
+        }
+
+        double headroomMs = Math.max(0.0, TICK_MS - HEADROOM_MS - mspt);
+        double budgetMs = Math.min(maxMsPerTick, headroomMs);
+        tickBudgetNanos = (long) (budgetMs * 1_000_000L) - chargedNanos;
+        chargedNanos = 0;
+    }
+
+    /**
+     * Whether another candidate may be dispatched this tick. The minimum is always allowed so
+     * searches keep moving even while the server lags.
+     */
+    public boolean allows(int dispatched, long now) {
+        if (dispatched < minCandidates) return true;
+        return dispatched < candidateLimit && now - tickStart < tickBudgetNanos;
+    }
+
+    public void endTick(long now) {
+        lastUsedMs = (now - tickStart) / 1_000_000.0;
+    }
+
+    /**
+     * Charge main-thread work done for the search outside the search loop.
+     */
+    public void charge(long nanos) {
+        chargedNanos += nanos;
+    }
+
+    public int getCandidateLimit() {
+        return candidateLimit;
+    }
+
+    public double getMspt() {
+        return mspt;
+    }
+
+    public double getLastUsedMs() {
+        return lastUsedMs;
+    }
+
+    private double measureMspt() {
+        if (PaperLib.isPaper()) {
+            try {
+                return Bukkit.getAverageTickTime();
+            } catch (NoSuchMethodError ignored) {
+                // older Paper without the tick time API
+            }
+        }
+        return intervalMs > TICK_MS + 1.0 ? intervalMs : 0.0;
+    }
+}
@@ -0,0 +1,33 @@
+package com.kingrbxd.rtpqueue.search;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Independent uniform random points. Consecutive points can cluster.
+ */
+public class UniformSampler implements CoordinateSampler {
+    public static final String MODE = "uniform";
+
+    private long index;
+
+    public UniformSampler(long index) {
+        this.index = Math.max(0, index);
+    }
+
+    @Override
+    public void next(RandomGenerator random, double[] out) {
+        out[0] = random.nextDouble();
+        out[1] = random.nextDouble();
+        index++;
+    }
+
+    @Override
+    public String getMode() {
+        return MODE;
+    }
+
+    @Override
+    public long getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,24 @@
+package com.kingrbxd.rtpqueue.tasks;
+
+import com.kingrbxd.rtpqueue.AdvancedRTPQueue;
+
+/**
+ * Location pool maintenance task: evicts expired entries and wakes up the refiller
+ * for worlds below the low watermark.
+ */
+public class LocationPoolTask implements Runnable {
+    private final AdvancedRTPQueue plugin;
+
+    public LocationPoolTask(AdvancedRTPQueue plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void run() {
+        if (plugin.getLocationPool() == null) {
+            return;
+        }
+
+        plugin.getLocationPool().maintain();
+    }
+}
@@ -0,0 +1,127 @@
+package com.kingrbxd.rtpqueue.protection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lookups and incremental updates of the spatial claim index.
+ */
+class ClaimIndexTest {
+
+    @Test
+    void answersPointAndRectangleQueries() {
+        ClaimIndex index = new ClaimIndex();
+        index.publish("world", new int[]{0, 0, 99, 99, -300, -300, -290, -250});
+
+        assertTrue(index.isClaimed("world", 0, 0));
+        assertTrue(index.isClaimed("world", 99, 99));
+        assertFalse(index.isClaimed("world", 100, 50));
+        assertTrue(index.isClaimed("world", -295, -260));
+        assertFalse(index.isClaimed("world_nether", 0, 0));
+
+        assertTrue(index.intersects("world", 90, 90, 120, 120));
+        assertFalse(index.intersects("world", 100, 100, 200, 200));
+        assertTrue(index.covers("world", 16, 16, 31, 31));
+        assertFalse(index.covers("world", 96, 0, 111, 15), "chunk sticks out of the claim");
+        assertEquals(2, index.size("world"));
+    }
+
+    @Test
+    void hugeClaimsAndWideQueries() {
+        ClaimIndex index = new ClaimIndex();
+        index.publish("world", new int[]{-10_000, -10_000, 10_000, 10_000, 50_000, 50_000, 50_010, 50_010});
+
+        assertTrue(index.covers("world", 4096, 4096, 4111, 4111));
+        assertTrue(index.isClaimed("world", -9_999, 9_999));
+        assertTrue(index.intersects("world", 40_000, 40_000, 60_000, 60_000));
+
+        assertTrue(index.remove("world", -10_000, -10_000, 10_000, 10_000));
+        assertFalse(index.isClaimed("world", 0, 0));
+        assertTrue(index.intersects("world", 0, 0, 1_000_000, 1_000_000), "wide query still finds the small claim");
+    }
+
+    @Test
+    void addsAndRemovesSingleBoxes() {
+        ClaimIndex index = new ClaimIndex();
+        index.publish("world", new int[]{0, 0, 15, 15});
+
+        // spans four cells
+        index.add("world", 500, 500, 200, 200);
+        assertTrue(index.isClaimed("world", 300, 300));
+        assertTrue(index.covers("world", 256, 256, 271, 271));
+        assertEquals(2, index.size("world"));
+
+        assertFalse(index.remove("world", 200, 200, 499, 500), "no such box");
+        assertTrue(index.remove("world", 200, 200, 500, 500));
+        assertFalse(index.isClaimed("world", 300, 300));
+        assertTrue(index.isClaimed("world", 8, 8));
+        assertEquals(1, index.size("world"));
+
+        index.add("world_the_end", 0, 0, 15, 15);
+        assertTrue(index.isClaimed("world_the_end", 0, 0));
+    }
+
+    @Test
+    void duplicateBoxesAreRemovedOneAtATime() {
+        ClaimIndex index = new ClaimIndex();
+        index.publish("world", new int[]{0, 0, 15, 15, 0, 0, 15, 15});
+
+        assertTrue(index.remove("world", 0, 0, 15, 15));
+        assertTrue(index.isClaimed("world", 5, 5));
+        assertTrue(index.remove("world", 0, 0, 15, 15));
+        assertFalse(index.isClaimed("world", 5, 5));
+        assertFalse(index.remove("world", 0, 0, 15, 15));
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomUpdates() {
+        ClaimIndex index = new ClaimIndex();
+        List<int[]> expected = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(23L);
+
+        ClaimIndex.Collector collector = new ClaimIndex.Collector();
+        for (int i = 0; i < 200; i++) {
+            int[] box = randomBox(random);
+            collector.add("world", box[0], box[1], box[2], box[3]);
+            expected.add(box);
+        }
+        Map<String, int[]> boxes = collector.getBoxes();
+        index.publish("world", boxes.get("world"));
+
+        for (int i = 0; i < 2_000; i++) {
+            if (!expected.isEmpty() && random.nextBoolean()) {
+                int[] box = expected.remove(random.nextInt(expected.size()));
+                assertTrue(index.remove("world", box[0], box[1], box[2], box[3]));
+            } else {
+                int[] box = randomBox(random);
+                index.add("world", box[0], box[1], box[2], box[3]);
+                expected.add(box);
+            }
+        }
+        assertEquals(expected.size(), index.size("world"));
+
+        for (int i = 0; i < 5_000; i++) {
+            int x = random.nextInt(-6000, 6000);
+            int z = random.nextInt(-6000, 6000);
+            boolean claimed = false;
+            for (int[] box : expected) {
+                claimed |= box[0] <= x && box[2] >= x && box[1] <= z && box[3] >= z;
+            }
+            assertEquals(claimed, index.isClaimed("world", x, z), "column " + x + "," + z);
+        }
+    }
+
+    private static int[] randomBox(SplittableRandom random) {
+        int x = random.nextInt(-5000, 5000);
+        int z = random.nextInt(-5000, 5000);
+        // mostly chunk-sized claims, some spanning many cells
+        int size = random.nextInt(10) == 0 ? random.nextInt(500, 4000) : random.nextInt(1, 100);
+        return new int[]{x, z, x + size, z + random.nextInt(1, size + 1)};
+    }
+}
@@ -0,0 +1,121 @@
+package com.kingrbxd.rtpqueue.protection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lookups, invalidation and the open-addressing table of the per-chunk claim verdict cache.
+ */
+class ClaimVerdictCacheTest {
+
+    @Test
+    void returnsStoredVerdictsPerWorld() {
+        ClaimVerdictCache cache = new ClaimVerdictCache(300_000L, 65536);
+        cache.put("world", 3, -7, ClaimVerdict.CLAIMED);
+        cache.put("world", -3, 7, ClaimVerdict.UNCLAIMED);
+        cache.put("world_nether", 3, -7, ClaimVerdict.PARTIAL);
+
+        assertEquals(ClaimVerdict.CLAIMED, cache.get("world", 3, -7));
+        assertEquals(ClaimVerdict.UNCLAIMED, cache.get("world", -3, 7));
+        assertEquals(ClaimVerdict.PARTIAL, cache.get("world_nether", 3, -7));
+        assertNull(cache.get("world", 7, -3));
+        assertNull(cache.get("world_the_end", 3, -7));
+    }
+
+    @Test
+    void invalidatesChunksTouchingRectangle() {
+        ClaimVerdictCache cache = new ClaimVerdictCache(300_000L, 65536);
+        for (int x = -4; x <= 4; x++) {
+            for (int z = -4; z <= 4; z++) {
+                cache.put("world", x, z, ClaimVerdict.UNCLAIMED);
+            }
+        }
+
+        // blocks -1..16 touch chunks -1..1
+        cache.invalidate("world", -1, -1, 16, 16);
+
+        for (int x = -4; x <= 4; x++) {
+            for (int z = -4; z <= 4; z++) {
+                boolean touched = x >= -1 && x <= 1 && z >= -1 && z <= 1;
+                assertEquals(touched, cache.get("world", x, z) == null, "chunk " + x + "," + z);
+            }
+        }
+        assertEquals(81 - 9, cache.size("world"));
+    }
+
+    @Test
+    void hugeClaimWalksTheTableInstead() {
+        ClaimVerdictCache cache = new ClaimVerdictCache(300_000L, 65536);
+        cache.put("world", 0, 0, ClaimVerdict.CLAIMED);
+        cache.put("world", 5000, 5000, ClaimVerdict.CLAIMED);
+
+        cache.invalidate("world", -100_000, -100_000, 1000, 1000);
+
+        assertNull(cache.get("world", 0, 0));
+        assertEquals(ClaimVerdict.CLAIMED, cache.get("world", 5000, 5000));
+        assertEquals(1, cache.size("world"));
+    }
+
+    @Test
+    void matchesMapUnderRandomPutsAndRemovals() {
+        ClaimVerdictCache cache = new ClaimVerdictCache(300_000L, 1 << 20);
+        Map<Long, ClaimVerdict> expected = new HashMap<>();
+        ClaimVerdict[] verdicts = ClaimVerdict.values();
+        SplittableRandom random = new SplittableRandom(11L);
+
+        for (int i = 0; i < 20_000; i++) {
+            int x = random.nextInt(-60, 60);
+            int z = random.nextInt(-60, 60);
+            long key = (long) x << 32 | (z & 0xFFFFFFFFL);
+            if (random.nextInt(3) == 0) {
+                cache.invalidate("world", x << 4, z << 4, x << 4, z << 4);
+                expected.remove(key);
+            } else {
+                ClaimVerdict verdict = verdicts[random.nextInt(verdicts.length)];
+                cache.put("world", x, z, verdict);
+                expected.put(key, verdict);
+            }
+        }
+
+        assertEquals(expected.size(), cache.size("world"));
+        for (int x = -60; x < 60; x++) {
+            for (int z = -60; z < 60; z++) {
+                assertEquals(expected.get((long) x << 32 | (z & 0xFFFFFFFFL)), cache.get("world", x, z));
+            }
+        }
+    }
+
+    @Test
+    void emptiesWorldWhenFull() {
+        ClaimVerdictCache cache = new ClaimVerdictCache(300_000L, 64);
+        for (int i = 0; i < 64; i++) {
+            cache.put("world", i, 0, ClaimVerdict.UNCLAIMED);
+        }
+        cache.put("world_nether", 0, 0, ClaimVerdict.CLAIMED);
+        assertEquals(64, cache.size("world"));
+
+        cache.put("world", 100, 0, ClaimVerdict.CLAIMED);
+        assertEquals(1, cache.size("world"));
+        assertEquals(ClaimVerdict.CLAIMED, cache.get("world", 100, 0));
+        assertEquals(ClaimVerdict.CLAIMED, cache.get("world_nether", 0, 0), "other worlds keep their verdicts");
+    }
+
+    @Test
+    void invalidateWorldDropsOneOrAll() {
+        ClaimVerdictCache cache = new ClaimVerdictCache(300_000L, 65536);
+        cache.put("world", 0, 0, ClaimVerdict.CLAIMED);
+        cache.put("world_nether", 0, 0, ClaimVerdict.CLAIMED);
+
+        cache.invalidateWorld("world");
+        assertNull(cache.get("world", 0, 0));
+        assertEquals(ClaimVerdict.CLAIMED, cache.get("world_nether", 0, 0));
+
+        cache.invalidateWorld(null);
+        assertNull(cache.get("world_nether", 0, 0));
+    }
+}
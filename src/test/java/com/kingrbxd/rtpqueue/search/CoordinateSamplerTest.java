@@ -0,0 +1,102 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Coverage and resume behaviour of the coordinate samplers.
+ */
+class CoordinateSamplerTest {
+
+    @Test
+    void pointsStayInUnitSquare() {
+        Random random = new Random(1);
+        double[] out = new double[2];
+        CoordinateSampler[] samplers = {
+                new UniformSampler(0), new StratifiedSampler(0, 16), new HaltonSampler(0, 0.73, 0.41)
+        };
+
+        for (CoordinateSampler sampler : samplers) {
+            for (int i = 0; i < 10_000; i++) {
+                sampler.next(random, out);
+                assertTrue(out[0] >= 0 && out[0] < 1, sampler.getMode() + " u=" + out[0]);
+                assertTrue(out[1] >= 0 && out[1] < 1, sampler.getMode() + " v=" + out[1]);
+            }
+            assertEquals(10_000, sampler.getIndex());
+        }
+    }
+
+    @Test
+    void stratifiedVisitsEveryCellOncePerRound() {
+        int strata = 12;
+        StratifiedSampler sampler = new StratifiedSampler(0, strata);
+        Random random = new Random(2);
+        double[] out = new double[2];
+
+        for (int round = 0; round < 3; round++) {
+            boolean[] seen = new boolean[strata * strata];
+            for (int i = 0; i < strata * strata; i++) {
+                sampler.next(random, out);
+                int cell = (int) (out[1] * strata) * strata + (int) (out[0] * strata);
+                assertFalse(seen[cell], "cell " + cell + " visited twice in round " + round);
+                seen[cell] = true;
+            }
+        }
+    }
+
+    @Test
+    void haltonPrefixCoversGrid() {
+        HaltonSampler sampler = new HaltonSampler(0, 0.25, 0.9);
+        double[] out = new double[2];
+        int grid = 8;
+        int[] counts = new int[grid * grid];
+
+        for (int i = 0; i < grid * grid * 16; i++) {
+            sampler.next(null, out);
+            counts[(int) (out[1] * grid) * grid + (int) (out[0] * grid)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count >= 8 && count <= 24, "uneven coverage: " + count);
+        }
+    }
+
+    @Test
+    void resumedSamplerContinuesSequence() {
+        HaltonSampler first = new HaltonSampler(0, 0.5, 0.1);
+        double[] out = new double[2];
+        for (int i = 0; i < 500; i++) {
+            first.next(null, out);
+        }
+
+        HaltonSampler resumed = new HaltonSampler(first.getIndex(), first.getOffsetU(), first.getOffsetV());
+        double[] expected = new double[2];
+        for (int i = 0; i < 100; i++) {
+            first.next(null, expected);
+            resumed.next(null, out);
+            assertArrayEquals(expected, out);
+        }
+    }
+
+    @Test
+    void resumedStratifiedSamplerContinuesCellOrder() {
+        StratifiedSampler first = new StratifiedSampler(0, 8);
+        Random random = new Random(3);
+        double[] out = new double[2];
+        for (int i = 0; i < 37; i++) {
+            first.next(random, out);
+        }
+
+        StratifiedSampler resumed = new StratifiedSampler(first.getIndex(), 8);
+        double[] expected = new double[2];
+        for (int i = 0; i < 64; i++) {
+            first.next(random, expected);
+            resumed.next(random, out);
+            assertEquals((int) (expected[0] * 8), (int) (out[0] * 8));
+            assertEquals((int) (expected[1] * 8), (int) (out[1] * 8));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Separation checks, shared cells and reload behaviour of the destination spatial hash.
+ */
+class DestinationSpacingTest {
+
+    @Test
+    void rejectsColumnsWithinSeparation() {
+        DestinationSpacing spacing = new DestinationSpacing();
+        spacing.configure(true, 100, 60_000L);
+        spacing.record("world", 1000, 1000);
+
+        assertTrue(spacing.isTooClose("world", 1000, 1000));
+        assertTrue(spacing.isTooClose("world", 1099, 1000), "neighbour cell within range");
+        assertTrue(spacing.isTooClose("world", 930, 930));
+        assertFalse(spacing.isTooClose("world", 1100, 1000), "exactly the separation is allowed");
+        assertFalse(spacing.isTooClose("world", 1080, 1080), "diagonal beyond the radius");
+        assertFalse(spacing.isTooClose("world_nether", 1000, 1000), "other worlds are unaffected");
+    }
+
+    @Test
+    void worksAcrossNegativeCoordinates() {
+        DestinationSpacing spacing = new DestinationSpacing();
+        spacing.configure(true, 64, 60_000L);
+        spacing.record("world", -5, -5);
+
+        assertTrue(spacing.isTooClose("world", 20, 20));
+        assertTrue(spacing.isTooClose("world", -60, -5));
+        assertFalse(spacing.isTooClose("world", -70, -5));
+    }
+
+    @Test
+    void keepsSeveralDestinationsPerCell() {
+        DestinationSpacing spacing = new DestinationSpacing();
+        spacing.configure(true, 100, 60_000L);
+        spacing.record("world", 10, 10);
+        spacing.record("world", 90, 90); // same cell as the first
+
+        assertTrue(spacing.isTooClose("world", -80, 10), "first destination must not be overwritten");
+        assertTrue(spacing.isTooClose("world", 180, 90));
+    }
+
+    @Test
+    void dropsOldestBeyondCellCap() {
+        DestinationSpacing spacing = new DestinationSpacing();
+        spacing.configure(true, 1000, 60_000L);
+        spacing.record("world", 0, 0);
+        for (int i = 1; i <= 8; i++) {
+            spacing.record("world", 900, i * 10);
+        }
+
+        assertFalse(spacing.isTooClose("world", -950, 0), "oldest destination was dropped");
+        assertTrue(spacing.isTooClose("world", 1850, 80));
+    }
+
+    @Test
+    void disabledNeverRejects() {
+        DestinationSpacing spacing = new DestinationSpacing();
+        spacing.configure(false, 100, 60_000L);
+        spacing.record("world", 0, 0);
+
+        assertFalse(spacing.isTooClose("world", 0, 0));
+    }
+
+    @Test
+    void reloadKeepsDestinationsUnlessCellSizeChanges() {
+        DestinationSpacing spacing = new DestinationSpacing();
+        spacing.configure(true, 100, 60_000L);
+        spacing.record("world", 0, 0);
+
+        spacing.configure(true, 100, 120_000L);
+        assertTrue(spacing.isTooClose("world", 10, 10), "same separation keeps destinations");
+
+        spacing.configure(true, 200, 120_000L);
+        assertFalse(spacing.isTooClose("world", 10, 10), "a new cell size starts empty");
+    }
+}
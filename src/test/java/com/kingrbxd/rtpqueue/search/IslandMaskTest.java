@@ -0,0 +1,90 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cell classification, land picks and persistence of the End island mask.
+ */
+class IslandMaskTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    void cellTurnsVoidOnlyAfterSeveralEmptyColumns() {
+        IslandMask mask = new IslandMask(0, 1023, 0, 1023);
+        int unknown = mask.getUnknownCells();
+
+        for (int i = 0; i < 3; i++) {
+            mask.mark(i, 0, false);
+        }
+        assertEquals(IslandMask.UNKNOWN, mask.get(0, 0), "three empty columns are not enough");
+
+        mask.mark(3, 0, false);
+        assertTrue(mask.isVoid(0, 0));
+        assertEquals(unknown - 1, mask.getUnknownCells());
+    }
+
+    @Test
+    void landWinsOverVoid() {
+        IslandMask mask = new IslandMask(0, 1023, 0, 1023);
+        for (int i = 0; i < 4; i++) {
+            mask.mark(i, 0, false);
+        }
+        mask.mark(5, 5, true);
+
+        assertEquals(IslandMask.LAND, mask.get(0, 0));
+        mask.mark(6, 6, false);
+        assertEquals(IslandMask.LAND, mask.get(0, 0), "land is never cleared");
+        assertEquals(1, mask.getLandCells());
+    }
+
+    @Test
+    void picksColumnsInsideLandCells() {
+        IslandMask mask = new IslandMask(-500, 500, -500, 500);
+        int[] out = new int[2];
+        assertFalse(mask.pickLand(new SplittableRandom(1L), out), "no land known yet");
+
+        mask.mark(-300, 200, true);
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(mask.pickLand(random, out));
+            assertEquals(IslandMask.LAND, mask.get(out[0], out[1]));
+        }
+    }
+
+    @Test
+    void savesLandButNotVoid() throws IOException {
+        File file = new File(folder, "world_the_end.dat");
+        IslandMask mask = new IslandMask(-1000, 1000, -1000, 1000);
+        mask.mark(100, 100, true);
+        for (int i = 0; i < 4; i++) {
+            mask.mark(-900 + i, -900, false);
+        }
+        mask.save(file);
+
+        IslandMask loaded = IslandMask.load(file, -1000, 1000, -1000, 1000);
+        assertEquals(IslandMask.LAND, loaded.get(100, 100));
+        assertEquals(IslandMask.UNKNOWN, loaded.get(-900, -900), "void is relearned after a restart");
+        assertEquals(1, loaded.getLandCells());
+    }
+
+    @Test
+    void ignoresFileSavedForOtherBounds() throws IOException {
+        File file = new File(folder, "world_the_end.dat");
+        IslandMask mask = new IslandMask(-1000, 1000, -1000, 1000);
+        mask.mark(100, 100, true);
+        mask.save(file);
+
+        IslandMask loaded = IslandMask.load(file, -2000, 2000, -2000, 2000);
+        assertEquals(0, loaded.getLandCells());
+        assertEquals(IslandMask.UNKNOWN, loaded.get(100, 100));
+    }
+}
@@ -0,0 +1,51 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bucketing, mean and bucket-edge percentiles of the search latency histogram.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getMeanMillis());
+        assertEquals(0.0, histogram.getPercentileMillis(0.5));
+    }
+
+    @Test
+    void percentilesAreUpperBucketEdges() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(100_000L); // 100us, bucket [64, 128) us
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5_000_000L); // 5ms, bucket [4096, 8192) us
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(0.59, histogram.getMeanMillis(), 1e-9);
+        assertEquals(0.128, histogram.getPercentileMillis(0.5), 1e-9);
+        assertEquals(0.128, histogram.getPercentileMillis(0.9), 1e-9);
+        assertEquals(8.192, histogram.getPercentileMillis(0.99), 1e-9);
+        assertEquals(8.192, histogram.getPercentileMillis(1.0), 1e-9);
+    }
+
+    @Test
+    void outOfRangeSamplesLandInEdgeBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+        histogram.record(500L); // below 1us
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0.001, histogram.getPercentileMillis(1.0), 1e-9);
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals((1L << 31) / 1000.0, histogram.getPercentileMillis(1.0), 1e-9);
+    }
+}
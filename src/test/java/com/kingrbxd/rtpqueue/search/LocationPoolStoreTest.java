@@ -0,0 +1,144 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replay, truncation and compaction of the per-world pool log.
+ */
+class LocationPoolStoreTest {
+    private static final Logger LOGGER = Logger.getLogger("LocationPoolStoreTest");
+
+    @TempDir
+    File dataFolder;
+
+    @Test
+    void replaysAddsAndRemoves() {
+        LocationPoolStore store = new LocationPoolStore(dataFolder, LOGGER, world -> Collections.emptyList());
+        store.appendAdd("world", 10.5, 70, 20.5, 1000L);
+        store.appendAdd("world", 30.5, 64, -40.5, 2000L);
+        store.appendAdd("world", -5.5, 90, 7.5, 3000L);
+        store.appendRemove("world", 30.5, 64, -40.5);
+        store.close();
+
+        List<LocationPoolStore.StoredLocation> loaded = load();
+        assertEquals(2, loaded.size());
+        assertStored(loaded.get(0), 10.5, 70, 20.5, 1000L);
+        assertStored(loaded.get(1), -5.5, 90, 7.5, 3000L);
+    }
+
+    @Test
+    void keepsEntriesBeforeTruncatedTail() throws IOException {
+        LocationPoolStore store = new LocationPoolStore(dataFolder, LOGGER, world -> Collections.emptyList());
+        store.appendAdd("world", 1.5, 70, 1.5, 1L);
+        store.appendAdd("world", 2.5, 70, 2.5, 2L);
+        store.close();
+
+        File file = new File(new File(dataFolder, "pool"), "world.dat");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5); // cut into the second record's createdAt
+        }
+
+        List<LocationPoolStore.StoredLocation> loaded = load();
+        assertEquals(1, loaded.size());
+        assertStored(loaded.get(0), 1.5, 70, 1.5, 1L);
+    }
+
+    @Test
+    void ignoresUnknownFormat() throws IOException {
+        File folder = new File(dataFolder, "pool");
+        assertTrue(folder.mkdirs());
+        try (FileOutputStream out = new FileOutputStream(new File(folder, "world.dat"))) {
+            out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        }
+
+        assertTrue(load().isEmpty());
+    }
+
+    @Test
+    void rewriteReplacesLog() {
+        World world = world("world");
+        LocationPoolStore store = new LocationPoolStore(dataFolder, LOGGER, name -> Collections.emptyList());
+        store.appendAdd("world", 1.5, 70, 1.5, 1L);
+        store.appendAdd("world", 2.5, 70, 2.5, 2L);
+        store.rewrite("world", Collections.singletonList(new LocationPool.PooledLocation(new Location(world, 3.5, 80, 3.5), 3L)));
+        store.appendAdd("world", 4.5, 60, 4.5, 4L);
+        store.close();
+
+        List<LocationPoolStore.StoredLocation> loaded = load();
+        assertEquals(2, loaded.size());
+        assertStored(loaded.get(0), 3.5, 80, 3.5, 3L);
+        assertStored(loaded.get(1), 4.5, 60, 4.5, 4L);
+    }
+
+    @Test
+    void compactsChurnIntoSnapshot() {
+        World world = world("world");
+        List<LocationPool.PooledLocation> live = new ArrayList<>();
+        live.add(new LocationPool.PooledLocation(new Location(world, 0.5, 70, 0.5), 5L));
+        LocationPoolStore store = new LocationPoolStore(dataFolder, LOGGER, name -> new ArrayList<>(live));
+
+        for (int i = 0; i < 100; i++) {
+            store.appendAdd("world", 100 + i + 0.5, 70, 0.5, i);
+            store.appendRemove("world", 100 + i + 0.5, 70, 0.5);
+        }
+        store.close();
+
+        File file = new File(new File(dataFolder, "pool"), "world.dat");
+        // header (5 bytes) plus far fewer than the 200 records written, each at least 25 bytes
+        assertTrue(file.length() < 5 + 100 * 25, "log was not compacted: " + file.length() + " bytes");
+
+        List<LocationPoolStore.StoredLocation> loaded = load();
+        assertFalse(loaded.isEmpty());
+        assertStored(loaded.get(0), 0.5, 70, 0.5, 5L);
+    }
+
+    private List<LocationPoolStore.StoredLocation> load() {
+        LocationPoolStore store = new LocationPoolStore(dataFolder, LOGGER, name -> Collections.emptyList());
+        try {
+            return store.load("world");
+        } finally {
+            store.close();
+        }
+    }
+
+    private static void assertStored(LocationPoolStore.StoredLocation stored, double x, double y, double z, long createdAt) {
+        assertEquals(x, stored.getX());
+        assertEquals(y, stored.getY());
+        assertEquals(z, stored.getZ());
+        assertEquals(createdAt, stored.getCreatedAt());
+    }
+
+    /**
+     * A World that only knows its name, enough for PooledLocation.
+     */
+    static World world(String name) {
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "hashCode":
+                            return name.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,102 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Region-order walk and the saved resume index of a pregeneration job.
+ */
+class PregenProgressTest {
+
+    @Test
+    void visitsEveryChunkInBoundsOnce() {
+        // -40..40 chunks spans regions -2..1 on both axes
+        PregenProgress progress = new PregenProgress(-40, 40, -40, 40, 0);
+        assertEquals(4L * 4 * 32 * 32, progress.getTotal());
+
+        Set<Long> seen = new HashSet<>();
+        while (progress.hasNext()) {
+            long index = progress.next();
+            int chunkX = progress.chunkX(index);
+            int chunkZ = progress.chunkZ(index);
+            if (!progress.inBounds(chunkX, chunkZ)) continue;
+            assertTrue(seen.add(((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL)), "visited twice: " + chunkX + "," + chunkZ);
+        }
+        assertEquals(81 * 81, seen.size());
+        assertTrue(progress.isDone());
+    }
+
+    @Test
+    void walksOneRegionAtATime() {
+        PregenProgress progress = new PregenProgress(0, 63, 0, 31, 0);
+        for (long index = 0; index < 32 * 32; index++) {
+            assertTrue(progress.chunkX(index) < 32, "left the first region at slot " + index);
+        }
+        assertEquals(32, progress.chunkX(32 * 32));
+    }
+
+    @Test
+    void skipsTheRestOfARegion() {
+        PregenProgress progress = new PregenProgress(0, 63, 0, 31, 0);
+        long first = progress.next();
+        assertTrue(progress.isRegionStart(first));
+
+        progress.skipRegion(first);
+        long next = progress.next();
+        assertTrue(progress.isRegionStart(next));
+        assertEquals(32, progress.chunkX(next));
+
+        progress.skipRegion(next);
+        assertFalse(progress.hasNext(), "skipping the last region ends the walk");
+        assertEquals(progress.getTotal(), progress.getResumeIndex());
+    }
+
+    @Test
+    void resumesFromLowestUnfinishedLoad() {
+        PregenProgress progress = new PregenProgress(0, 31, 0, 31, 0);
+        long first = progress.next();
+        long second = progress.next();
+        long third = progress.next();
+        progress.started(first);
+        progress.started(second);
+        progress.started(third);
+
+        // the later loads finish before the slow first one
+        progress.completed(third);
+        progress.completed(second);
+        assertEquals(first, progress.getResumeIndex());
+        assertFalse(progress.isDone());
+
+        progress.completed(first);
+        assertEquals(3, progress.getResumeIndex());
+    }
+
+    @Test
+    void resumedJobContinuesFromSavedIndex() {
+        PregenProgress original = new PregenProgress(-10, 10, -10, 10, 0);
+        for (int i = 0; i < 500; i++) {
+            original.next();
+        }
+        long saved = original.getResumeIndex();
+
+        PregenProgress resumed = new PregenProgress(-10, 10, -10, 10, saved);
+        assertEquals(saved, resumed.getResumeIndex());
+        long index = resumed.next();
+        long expected = original.next();
+        assertEquals(expected, index);
+        assertEquals(original.chunkX(expected), resumed.chunkX(index));
+        assertEquals(original.chunkZ(expected), resumed.chunkZ(index));
+    }
+
+    @Test
+    void savedIndexIsClampedToTotal() {
+        PregenProgress progress = new PregenProgress(0, 15, 0, 15, Long.MAX_VALUE);
+        assertFalse(progress.hasNext());
+        assertEquals(progress.getTotal(), progress.getResumeIndex());
+        assertTrue(progress.isDone());
+    }
+}
@@ -0,0 +1,65 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seed derivation and replay of searches from a logged seed.
+ */
+class SearchRandomTest {
+
+    @Test
+    void sameMasterSeedGivesSameSearchSeeds() {
+        SearchRandom first = new SearchRandom(42L);
+        SearchRandom second = new SearchRandom(42L);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(first.nextSearchSeed("world"), second.nextSearchSeed("world"));
+        }
+    }
+
+    @Test
+    void worldsHaveIndependentStreams() {
+        SearchRandom interleaved = new SearchRandom(7L);
+        SearchRandom single = new SearchRandom(7L);
+
+        long[] expected = new long[10];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = single.nextSearchSeed("world");
+        }
+        for (int i = 0; i < expected.length; i++) {
+            interleaved.nextSearchSeed("world_nether");
+            assertEquals(expected[i], interleaved.nextSearchSeed("world"));
+        }
+
+        assertNotEquals(interleaved.getWorldSeed("world"), interleaved.getWorldSeed("world_nether"));
+        assertEquals(new SearchRandom(7L).getWorldSeed("world"), interleaved.getWorldSeed("world"));
+    }
+
+    @Test
+    void searchReplaysFromItsSeed() {
+        long seed = new SearchRandom(123L).nextSearchSeed("world");
+
+        double[][] original = sample(seed);
+        double[][] replay = sample(seed);
+        for (int i = 0; i < original.length; i++) {
+            assertArrayEquals(original[i], replay[i]);
+        }
+    }
+
+    /**
+     * The candidates a search would draw: a jittered sampler fed by the search's own random.
+     */
+    private static double[][] sample(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StratifiedSampler sampler = new StratifiedSampler(0, 16);
+        double[][] points = new double[200][2];
+        for (double[] point : points) {
+            sampler.next(random, point);
+        }
+        return points;
+    }
+}
@@ -0,0 +1,99 @@
+package com.kingrbxd.rtpqueue.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AIMD candidate limit and time budget of the search loop. Off Paper, MSPT is estimated from the
+ * spacing of beginTick calls, so the tests drive it with fake tick times.
+ */
+class TickBudgetTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void limitGrowsByOneWhileTicksAreCheap() {
+        TickBudget budget = new TickBudget();
+        budget.configure(2.0, 40.0, 1, 50);
+
+        long now = MS;
+        int before = budget.getCandidateLimit();
+        for (int i = 0; i < 10; i++) {
+            budget.beginTick(now);
+            budget.endTick(now + MS / 10);
+            now += 50 * MS;
+        }
+        assertEquals(before + 10, budget.getCandidateLimit());
+    }
+
+    @Test
+    void limitIsCappedByMaxCandidates() {
+        TickBudget budget = new TickBudget();
+        budget.configure(2.0, 40.0, 1, 8);
+
+        long now = MS;
+        for (int i = 0; i < 100; i++) {
+            budget.beginTick(now);
+            budget.endTick(now);
+            now += 50 * MS;
+        }
+        assertEquals(8, budget.getCandidateLimit());
+    }
+
+    @Test
+    void limitHalvesWhileLagging() {
+        TickBudget budget = new TickBudget();
+        budget.configure(2.0, 40.0, 2, 50);
+
+        long now = MS;
+        for (int i = 0; i < 30; i++) {
+            budget.beginTick(now);
+            budget.endTick(now);
+            now += 50 * MS;
+        }
+        int healthy = budget.getCandidateLimit();
+
+        // ticks arriving 150ms apart push the smoothed estimate well past target-mspt
+        int lagging = healthy;
+        for (int i = 0; i < 40; i++) {
+            budget.beginTick(now);
+            budget.endTick(now);
+            now += 150 * MS;
+            lagging = budget.getCandidateLimit();
+        }
+        assertTrue(budget.getMspt() > 40.0, "mspt estimate " + budget.getMspt());
+        assertTrue(lagging < healthy);
+        assertEquals(2, lagging, "limit should settle at min-candidates-per-tick");
+    }
+
+    @Test
+    void minimumIsAlwaysAllowed() {
+        TickBudget budget = new TickBudget();
+        budget.configure(0.1, 40.0, 3, 50);
+        budget.beginTick(MS);
+
+        long late = MS + 40 * MS;
+        assertTrue(budget.allows(0, late));
+        assertTrue(budget.allows(2, late));
+        assertFalse(budget.allows(3, late));
+    }
+
+    @Test
+    void chargedWorkShrinksNextTick() {
+        TickBudget budget = new TickBudget();
+        budget.configure(2.0, 40.0, 0, 50);
+        budget.beginTick(MS);
+        budget.endTick(MS);
+
+        budget.charge(3 * MS);
+        long start = 51 * MS;
+        budget.beginTick(start);
+        assertFalse(budget.allows(0, start), "work charged beyond the budget leaves nothing for this tick");
+
+        budget.endTick(start);
+        long next = 101 * MS;
+        budget.beginTick(next);
+        assertTrue(budget.allows(0, next));
+        assertFalse(budget.allows(0, next + 2 * MS));
+    }
+}